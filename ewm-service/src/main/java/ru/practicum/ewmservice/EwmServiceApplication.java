@@ -3,8 +3,10 @@ package ru.practicum.ewmservice;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 @ComponentScan(basePackages = {"ru.practicum.ewmservice", "ru.practicum.statsclient"})
 public class EwmServiceApplication {
     public static void main(String[] args) {
@@ -1,5 +1,6 @@
 package ru.practicum.ewmservice.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -8,7 +9,9 @@ import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewmservice.dto.EventFullDto;
 import ru.practicum.ewmservice.dto.UpdateEventAdminRequest;
 import ru.practicum.ewmservice.model.EventState;
+import ru.practicum.ewmservice.service.CursorPage;
 import ru.practicum.ewmservice.service.EventService;
+import ru.practicum.ewmservice.service.PageCursor;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -29,9 +32,15 @@ public class AdminEventController {
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeStart,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeEnd,
             @RequestParam(defaultValue = "0") Integer from,
-            @RequestParam(defaultValue = "10") Integer size) {
-
-        return eventService.getEventsByAdmin(users, states, categories, rangeStart, rangeEnd, from, size);
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String after,
+            HttpServletResponse response) {
+        CursorPage<EventFullDto> page = eventService.getEventsByAdmin(users, states, categories, rangeStart, rangeEnd,
+                from, size, after);
+        if (page.nextCursor() != null) {
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return page.content();
     }
 
     @PatchMapping("/{eventId}")
@@ -1,11 +1,14 @@
 package ru.practicum.ewmservice.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewmservice.dto.UserDto;
+import ru.practicum.ewmservice.service.CursorPage;
 import ru.practicum.ewmservice.service.UserService;
+import ru.practicum.ewmservice.service.PageCursor;
 
 import java.util.List;
 
@@ -33,7 +36,13 @@ public class AdminUserController {
     public List<UserDto> getUsers(
             @RequestParam(required = false) List<Long> ids,
             @RequestParam(defaultValue = "0") Integer from,
-            @RequestParam(defaultValue = "10") Integer size) {
-        return userService.getUsers(ids, from, size);
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String after,
+            HttpServletResponse response) {
+        CursorPage<UserDto> page = userService.getUsers(ids, from, size, after);
+        if (page.nextCursor() != null) {
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return page.content();
     }
 }
\ No newline at end of file
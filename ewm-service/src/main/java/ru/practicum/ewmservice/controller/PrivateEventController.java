@@ -1,5 +1,6 @@
 package ru.practicum.ewmservice.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
@@ -10,7 +11,9 @@ import ru.practicum.ewmservice.dto.EventFullDto;
 import ru.practicum.ewmservice.dto.EventShortDto;
 import ru.practicum.ewmservice.dto.NewEventDto;
 import ru.practicum.ewmservice.dto.UpdateEventUserRequest;
+import ru.practicum.ewmservice.service.CursorPage;
 import ru.practicum.ewmservice.service.EventService;
+import ru.practicum.ewmservice.service.PageCursor;
 import ru.practicum.ewmservice.service.PrivateEventService;
 
 import java.util.List;
@@ -27,8 +30,14 @@ public class PrivateEventController {
     @ResponseStatus(HttpStatus.OK)
     public List<EventShortDto> getUserEvents(@PathVariable Long userId,
                                              @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
-                                             @RequestParam(defaultValue = "10") @Positive Integer size) {
-        return privateEventService.getUserEvents(userId, from, size);
+                                             @RequestParam(defaultValue = "10") @Positive Integer size,
+                                             @RequestParam(required = false) String after,
+                                             HttpServletResponse response) {
+        CursorPage<EventShortDto> page = privateEventService.getUserEvents(userId, from, size, after);
+        if (page.nextCursor() != null) {
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return page.content();
     }
 
     @PostMapping
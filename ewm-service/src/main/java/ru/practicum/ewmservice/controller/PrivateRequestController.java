@@ -2,13 +2,17 @@ package ru.practicum.ewmservice.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewmservice.dto.EventRequestStatusUpdateRequest;
 import ru.practicum.ewmservice.dto.EventRequestStatusUpdateResult;
 import ru.practicum.ewmservice.dto.ParticipationRequestDto;
+import ru.practicum.ewmservice.dto.RegistrationTicketDto;
 import ru.practicum.ewmservice.service.ParticipationRequestService;
+import ru.practicum.ewmservice.service.RegistrationQueue;
 
 import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequiredArgsConstructor
@@ -16,6 +20,7 @@ import java.util.List;
 public class PrivateRequestController {
 
     private final ParticipationRequestService requestService;
+    private final RegistrationQueue registrationQueue;
 
     @GetMapping("/requests")
     @ResponseStatus(HttpStatus.OK)
@@ -23,11 +28,23 @@ public class PrivateRequestController {
         return requestService.getUsersRequests(userId);
     }
 
+    /**
+     * Заявка на событие с ажиотажным спросом ставится в очередь: ответ 202 с билетом вместо 201 с заявкой.
+     */
     @PostMapping("/requests")
-    @ResponseStatus(HttpStatus.CREATED)
-    public ParticipationRequestDto createRequest(@PathVariable Long userId,
-                                                 @RequestParam Long eventId) {
-        return requestService.createRequest(userId, eventId);
+    public ResponseEntity<Object> createRequest(@PathVariable Long userId,
+                                                @RequestParam Long eventId) {
+        if (registrationQueue.isHighDemand(eventId)) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(registrationQueue.submit(userId, eventId));
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(requestService.createRequest(userId, eventId));
+    }
+
+    @GetMapping("/requests/tickets/{ticketId}")
+    @ResponseStatus(HttpStatus.OK)
+    public RegistrationTicketDto getTicket(@PathVariable Long userId,
+                                           @PathVariable UUID ticketId) {
+        return registrationQueue.getTicket(userId, ticketId);
     }
 
     @PatchMapping("/requests/{requestId}/cancel")
@@ -1,12 +1,14 @@
 package ru.practicum.ewmservice.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.ewmservice.dto.CategoryDto;
 import ru.practicum.ewmservice.service.CategoryService;
+import ru.practicum.ewmservice.service.ResourceVersion;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequiredArgsConstructor
@@ -15,17 +17,25 @@ public class PublicCategoryController {
 
     private final CategoryService categoryService;
 
+    // Без @ResponseStatus: он заменил бы 304 от checkNotModified на 200
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
     public List<CategoryDto> getCategories(
             @RequestParam(defaultValue = "0") Integer from,
-            @RequestParam(defaultValue = "10") Integer size) {
+            @RequestParam(defaultValue = "10") Integer size,
+            WebRequest webRequest) {
+        // У списка только ETag: удаление категории не оставляет времени изменения
+        if (webRequest.checkNotModified(categoryService.getCategoriesVersion().etag())) {
+            return null;
+        }
         return categoryService.getCategories(from, size);
     }
 
     @GetMapping("/{catId}")
-    @ResponseStatus(HttpStatus.OK)
-    public CategoryDto getCategory(@PathVariable Long catId) {
+    public CategoryDto getCategory(@PathVariable Long catId, WebRequest webRequest) {
+        Optional<ResourceVersion> version = categoryService.getCategoryVersion(catId);
+        if (version.isPresent() && webRequest.checkNotModified(version.get().etag(), version.get().lastModified())) {
+            return null;
+        }
         return categoryService.getCategoryById(catId);
     }
 }
\ No newline at end of file
@@ -1,12 +1,17 @@
 package ru.practicum.ewmservice.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.ewmservice.dto.CompilationDto;
+import ru.practicum.ewmservice.service.CursorPage;
 import ru.practicum.ewmservice.service.CompilationService;
+import ru.practicum.ewmservice.service.PageCursor;
+import ru.practicum.ewmservice.service.ResourceVersion;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequiredArgsConstructor
@@ -15,18 +20,32 @@ public class PublicCompilationController {
 
     private final CompilationService compilationService;
 
+    // Без @ResponseStatus: он заменил бы 304 от checkNotModified на 200
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
     public List<CompilationDto> getCompilations(
             @RequestParam(required = false) Boolean pinned,
             @RequestParam(defaultValue = "0") Integer from,
-            @RequestParam(defaultValue = "10") Integer size) {
-        return compilationService.getCompilations(pinned, from, size);
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String after,
+            HttpServletResponse response,
+            WebRequest webRequest) {
+        // У списка только ETag: удаление подборки не оставляет времени изменения
+        if (webRequest.checkNotModified(compilationService.getCompilationsVersion().etag())) {
+            return null;
+        }
+        CursorPage<CompilationDto> page = compilationService.getCompilations(pinned, from, size, after);
+        if (page.nextCursor() != null) {
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return page.content();
     }
 
     @GetMapping("/{compId}")
-    @ResponseStatus(HttpStatus.OK)
-    public CompilationDto getCompilationById(@PathVariable Long compId) {
+    public CompilationDto getCompilationById(@PathVariable Long compId, WebRequest webRequest) {
+        Optional<ResourceVersion> version = compilationService.getCompilationVersion(compId);
+        if (version.isPresent() && webRequest.checkNotModified(version.get().etag(), version.get().lastModified())) {
+            return null;
+        }
         return compilationService.getCompilationById(compId);
     }
 }
\ No newline at end of file
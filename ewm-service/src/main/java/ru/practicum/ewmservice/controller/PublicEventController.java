@@ -1,23 +1,32 @@
 package ru.practicum.ewmservice.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.ewmservice.dto.EventClusterDto;
 import ru.practicum.ewmservice.dto.EventFullDto;
 import ru.practicum.ewmservice.dto.EventShortDto;
+import ru.practicum.ewmservice.service.CursorPage;
+import ru.practicum.ewmservice.service.EventClusterService;
 import ru.practicum.ewmservice.service.EventService;
+import ru.practicum.ewmservice.service.PageCursor;
+import ru.practicum.ewmservice.service.ResourceVersion;
 import ru.practicum.ewmservice.service.StatsIntegrationService;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/events")
 public class PublicEventController {
     private final EventService eventService;
+    private final EventClusterService eventClusterService;
     private final StatsIntegrationService statsIntegrationService;
 
     @GetMapping
@@ -29,19 +38,48 @@ public class PublicEventController {
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeStart,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeEnd,
             @RequestParam(required = false) Boolean onlyAvailable,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lon,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) List<Double> bbox,
             @RequestParam(required = false, defaultValue = "EVENT_DATE") String sort,
             @RequestParam(defaultValue = "0") Integer from,
             @RequestParam(defaultValue = "10") Integer size,
-            HttpServletRequest request) {
+            @RequestParam(required = false) String after,
+            HttpServletRequest request,
+            HttpServletResponse response) {
 
         statsIntegrationService.saveHit(request);
-        return eventService.getEvents(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, from, size);
+        CursorPage<EventShortDto> page = eventService.getEvents(text, categories, paid, rangeStart, rangeEnd,
+                onlyAvailable, lat, lon, radiusKm, bbox, sort, from, size, after);
+        if (page.nextCursor() != null) {
+            response.setHeader(PageCursor.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return page.content();
     }
 
-    @GetMapping("/{id}")
+    @GetMapping("/trending")
+    @ResponseStatus(HttpStatus.OK)
+    public List<EventShortDto> getTrendingEvents(
+            @RequestParam(required = false) List<Long> categories,
+            @RequestParam(defaultValue = "10") Integer size) {
+        return eventService.getTrendingEvents(categories, size);
+    }
+
+    @GetMapping("/clusters")
     @ResponseStatus(HttpStatus.OK)
-    public EventFullDto getEventById(@PathVariable Long id, HttpServletRequest request) {
+    public List<EventClusterDto> getClusters(@RequestParam List<Double> bbox, @RequestParam Integer zoom) {
+        return eventClusterService.getClusters(bbox, zoom);
+    }
+
+    // Без @ResponseStatus: он заменил бы 304 от checkNotModified на 200
+    @GetMapping("/{id}")
+    public EventFullDto getEventById(@PathVariable Long id, HttpServletRequest request, WebRequest webRequest) {
         statsIntegrationService.saveHit(request);
+        Optional<ResourceVersion> version = eventService.getEventVersion(id);
+        if (version.isPresent() && webRequest.checkNotModified(version.get().etag(), version.get().lastModified())) {
+            return null;
+        }
         return eventService.getEventById(id);
     }
 }
\ No newline at end of file
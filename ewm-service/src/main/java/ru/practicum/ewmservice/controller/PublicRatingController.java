@@ -25,8 +25,9 @@ public class PublicRatingController {
     @ResponseStatus(HttpStatus.OK)
     public List<RatingStatsDto> getTopRatedEvents(
             @RequestParam(defaultValue = "0") Integer from,
-            @RequestParam(defaultValue = "10") Integer size) {
-        return ratingService.getTopRatedEvents(from, size);
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(defaultValue = "RATING") String sort) {
+        return ratingService.getTopRatedEvents(from, size, sort);
     }
 
     @GetMapping("/users/top")
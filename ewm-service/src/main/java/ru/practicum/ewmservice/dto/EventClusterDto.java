@@ -0,0 +1,15 @@
+package ru.practicum.ewmservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventClusterDto {
+    private Double lat; // центроид событий кластера
+    private Double lon;
+    private Long count;
+    private Long eventId; // одно из событий кластера
+}
@@ -34,6 +34,7 @@ public class EventFullDto {
     private Boolean paid;
     private Integer participantLimit;
     private Boolean requestModeration;
+    private Boolean highDemand;
     private Long views;
     private Long confirmedRequests;
     private Long likes;
@@ -12,4 +12,5 @@ import java.util.List;
 public class EventRequestStatusUpdateRequest {
     private List<Long> requestIds;
     private String status; // CONFIRMED, REJECTED
+    private Boolean rejectOverflow; // при CONFIRMED не поместившиеся в лимит заявки отклоняются, если не false
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package ru.practicum.ewmservice.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -26,4 +27,8 @@ public class EventShortDto {
     private Long likes;
     private Long dislikes;
     private Long rating;
+
+    // Ключ сортировки HOT, нужен только для курсора
+    @JsonIgnore
+    private Double hotScore;
 }
\ No newline at end of file
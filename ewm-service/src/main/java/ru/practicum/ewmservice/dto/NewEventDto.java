@@ -40,6 +40,8 @@ public class NewEventDto {
 
     private Boolean requestModeration = true;
 
+    private Boolean highDemand = false;
+
     @NotBlank(message = "Title cannot be empty")
     @Size(min = 3, max = 120, message = "Title must be between 3 and 120 characters")
     private String title;
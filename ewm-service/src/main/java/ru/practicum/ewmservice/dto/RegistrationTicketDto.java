@@ -0,0 +1,20 @@
+package ru.practicum.ewmservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.ewmservice.model.RegistrationStatus;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RegistrationTicketDto {
+    private UUID id;
+    private Long event;
+    private Long requester;
+    private RegistrationStatus status;
+    private ParticipationRequestDto request; // созданная заявка, если ACCEPTED
+    private String reason; // причина отказа, если REJECTED
+}
@@ -36,6 +36,7 @@ public class UpdateEventUserRequest {
     private Integer participantLimit;
 
     private Boolean requestModeration;
+    private Boolean highDemand;
 
     @Size(min = 3, max = 120, message = "Title must be between 3 and 120 characters")
     private String title;
@@ -4,6 +4,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -40,6 +41,13 @@ public class ControllerExceptionHandler {
         return new ErrorMessage(HttpStatus.CONFLICT.value(), ex.getMessage(), request.getRequestURI());
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorMessage handleTooManyRequestsException(TooManyRequestsException ex, HttpServletRequest request) {
+        log.warn("TooManyRequestsException: {}", ex.getMessage());
+        return new ErrorMessage(HttpStatus.TOO_MANY_REQUESTS.value(), ex.getMessage(), request.getRequestURI());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorMessage handleMethodArgumentNotValidException(MethodArgumentNotValidException ex, HttpServletRequest request) {
@@ -105,4 +113,12 @@ public class ControllerExceptionHandler {
 
         return new ErrorMessage(HttpStatus.CONFLICT.value(), message, request.getRequestURI());
     }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorMessage handleOptimisticLockingFailureException(OptimisticLockingFailureException ex, HttpServletRequest request) {
+        log.error("OptimisticLockingFailureException: {}", ex.getMessage());
+        return new ErrorMessage(HttpStatus.CONFLICT.value(), "Resource was modified concurrently, retry the request",
+                request.getRequestURI());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package ru.practicum.ewmservice.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
@@ -11,6 +11,9 @@ public class CategoryMapper {
     }
 
     public Category toCategory(CategoryDto categoryDto) {
-        return new Category(categoryDto.getId(), categoryDto.getName());
+        Category category = new Category();
+        category.setId(categoryDto.getId());
+        category.setName(categoryDto.getName());
+        return category;
     }
 }
\ No newline at end of file
@@ -3,18 +3,61 @@ package ru.practicum.ewmservice.mapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import ru.practicum.ewmservice.dto.CompilationDto;
+import ru.practicum.ewmservice.dto.EventShortDto;
 import ru.practicum.ewmservice.model.Compilation;
-import ru.practicum.ewmservice.repository.ParticipationRequestRepository;
+import ru.practicum.ewmservice.model.Event;
+import ru.practicum.ewmservice.service.EventEnricher;
+import ru.practicum.ewmservice.service.EventStats;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
 public class CompilationMapper {
 
-    private final ParticipationRequestRepository requestRepository;
+    private final EventEnricher eventEnricher;
 
     public CompilationDto toCompilationDto(Compilation compilation) {
+        return toCompilationDtos(List.of(compilation)).get(0);
+    }
+
+    public List<CompilationDto> toCompilationDtos(List<Compilation> compilations) {
+        List<Event> events = compilations.stream()
+                .filter(compilation -> compilation.getEvents() != null)
+                .flatMap(compilation -> compilation.getEvents().stream())
+                .collect(Collectors.toList());
+        EventStats stats = eventEnricher.enrich(events);
+
+        return compilations.stream()
+                .map(compilation -> toCompilationDto(compilation, stats))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Подборки с событиями, заранее выбранными в EventShortDto; коллекции events не загружаются.
+     */
+    public List<CompilationDto> toCompilationDtos(List<Compilation> compilations,
+                                                  Map<Long, List<EventShortDto>> eventsByCompilation) {
+        eventEnricher.applyLiveStats(eventsByCompilation.values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList()));
+
+        return compilations.stream()
+                .map(compilation -> {
+                    CompilationDto dto = new CompilationDto();
+                    dto.setId(compilation.getId());
+                    dto.setTitle(compilation.getTitle());
+                    dto.setPinned(compilation.getPinned());
+                    dto.setEvents(eventsByCompilation.getOrDefault(compilation.getId(), new ArrayList<>()));
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private CompilationDto toCompilationDto(Compilation compilation, EventStats stats) {
         CompilationDto dto = new CompilationDto();
         dto.setId(compilation.getId());
         dto.setTitle(compilation.getTitle());
@@ -22,13 +65,10 @@ public class CompilationMapper {
 
         if (compilation.getEvents() != null) {
             dto.setEvents(compilation.getEvents().stream()
-                    .map(event -> {
-                        Long confirmedRequests = requestRepository.getConfirmedRequestsCount(event.getId());
-                        return EventMapper.toEventShortDto(event, event.getViews(), confirmedRequests);
-                    })
+                    .map(event -> EventMapper.toEventShortDto(event, stats))
                     .collect(Collectors.toList()));
         }
 
         return dto;
     }
-}
\ No newline at end of file
+}
@@ -8,13 +8,14 @@ import ru.practicum.ewmservice.model.Category;
 import ru.practicum.ewmservice.model.Event;
 import ru.practicum.ewmservice.model.EventState;
 import ru.practicum.ewmservice.model.User;
+import ru.practicum.ewmservice.service.EventStats;
 
 import java.time.LocalDateTime;
 
 @UtilityClass
 public class EventMapper {
 
-    public EventFullDto toEventFullDto(Event event, Long views, Long confirmedRequests) {
+    public EventFullDto toEventFullDto(Event event, EventStats stats) {
         if (event == null) {
             return null;
         }
@@ -41,17 +42,17 @@ public class EventMapper {
         dto.setPaid(event.getPaid());
         dto.setParticipantLimit(event.getParticipantLimit());
         dto.setRequestModeration(event.getRequestModeration());
-        dto.setViews(views != null ? views : 0L);
-        dto.setConfirmedRequests(confirmedRequests != null ? confirmedRequests : 0L);
-
-        dto.setLikes(0L);
-        dto.setDislikes(0L);
-        dto.setRating(0L);
+        dto.setHighDemand(event.getHighDemand());
+        dto.setViews(stats.views(event.getId()));
+        dto.setConfirmedRequests(stats.confirmedRequests(event.getId()));
+        dto.setLikes(stats.likes(event.getId()));
+        dto.setDislikes(stats.dislikes(event.getId()));
+        dto.setRating(dto.getLikes() - dto.getDislikes());
 
         return dto;
     }
 
-    public EventShortDto toEventShortDto(Event event, Long views, Long confirmedRequests) {
+    public EventShortDto toEventShortDto(Event event, EventStats stats) {
         if (event == null) {
             return null;
         }
@@ -71,12 +72,11 @@ public class EventMapper {
 
         dto.setEventDate(event.getEventDate());
         dto.setPaid(event.getPaid());
-        dto.setViews(views != null ? views : 0L);
-        dto.setConfirmedRequests(confirmedRequests != null ? confirmedRequests : 0L);
-
-        dto.setLikes(0L);
-        dto.setDislikes(0L);
-        dto.setRating(0L);
+        dto.setViews(stats.views(event.getId()));
+        dto.setConfirmedRequests(stats.confirmedRequests(event.getId()));
+        dto.setLikes(stats.likes(event.getId()));
+        dto.setDislikes(stats.dislikes(event.getId()));
+        dto.setRating(dto.getLikes() - dto.getDislikes());
 
         return dto;
     }
@@ -99,6 +99,7 @@ public class EventMapper {
         event.setPaid(newEventDto.getPaid() != null ? newEventDto.getPaid() : false);
         event.setParticipantLimit(newEventDto.getParticipantLimit() != null ? newEventDto.getParticipantLimit() : 0);
         event.setRequestModeration(newEventDto.getRequestModeration() != null ? newEventDto.getRequestModeration() : true);
+        event.setHighDemand(newEventDto.getHighDemand() != null ? newEventDto.getHighDemand() : false);
 
         return event;
     }
@@ -3,6 +3,10 @@ package ru.practicum.ewmservice.mapper;
 import lombok.experimental.UtilityClass;
 import ru.practicum.ewmservice.dto.ParticipationRequestDto;
 import ru.practicum.ewmservice.model.ParticipationRequest;
+import ru.practicum.ewmservice.model.RequestStatus;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 
 @UtilityClass
 public class ParticipationRequestMapper {
@@ -15,4 +19,17 @@ public class ParticipationRequestMapper {
                 request.getStatus()
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Строка native-запроса: id, created, event_id, requester_id, status.
+     */
+    public ParticipationRequestDto toParticipationRequestDto(Object[] row) {
+        return new ParticipationRequestDto(
+                ((Number) row[0]).longValue(),
+                row[1] instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) row[1],
+                ((Number) row[2]).longValue(),
+                ((Number) row[3]).longValue(),
+                RequestStatus.valueOf((String) row[4])
+        );
+    }
+}
@@ -5,7 +5,13 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Getter
@@ -13,7 +19,14 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "compilations")
 @Table(name = "compilations")
+@NamedEntityGraph(name = "Compilation.withEvents",
+        attributeNodes = @NamedAttributeNode(value = "events", subgraph = "events"),
+        subgraphs = @NamedSubgraph(name = "events", attributeNodes = {
+                @NamedAttributeNode("category"),
+                @NamedAttributeNode("initiator")
+        }))
 public class Compilation {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -25,7 +38,19 @@ public class Compilation {
     @Column(nullable = false)
     private Boolean pinned = false;
 
+    // Версия и время изменения — основа ETag и Last-Modified публичных ответов
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedOn;
+
+    // Коллекции подборок страницы инициализируются одним запросом IN по compilation_events вместе с событиями.
+    // Кеш коллекции не используется: события не кешируются, и из него они загружались бы по одному
     @ManyToMany(fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     @JoinTable(
             name = "compilation_events",
             joinColumns = @JoinColumn(name = "compilation_id"),
@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
@@ -55,6 +57,10 @@ public class Event {
     })
     private Location location;
 
+    // Ячейка геосетки для индексного поиска по области, генерируется в БД из координат (см. GeoGrid)
+    @Column(insertable = false, updatable = false)
+    private Integer locationCell;
+
     @Column(nullable = false)
     private Boolean paid = false;
 
@@ -63,17 +69,44 @@ public class Event {
 
     private Boolean requestModeration = true;
 
-    // Метод для получения confirmedRequests через репозиторий
-    @Transient
-    public Long getConfirmedRequests() {
-        return 0L;
-    }
+    // Заявки на событие с ажиотажным спросом принимаются через RegistrationQueue
+    @Column(nullable = false)
+    private Boolean highDemand = false;
 
-    // Метод для получения views через статистику
-    @Transient
-    public Long getViews() {
-        return 0L;
-    }
+    // Счётчики поддерживаются атомарными UPDATE в сервисах, поэтому Hibernate их не перезаписывает
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private Long confirmedRequests = 0L;
+
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private Long likes = 0L;
+
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private Long dislikes = 0L;
+
+    // Ключи сортировки публичного поиска: просмотры синхронизирует EventViewsSynchronizer,
+    // rating генерируется в БД как likes - dislikes
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private Long views = 0L;
+
+    @Column(insertable = false, updatable = false)
+    private Long rating = 0L;
+
+    // hot_score генерируется в БД из рейтинга и времени публикации, см. schema.sql
+    @Column(insertable = false, updatable = false)
+    private Double hotScore;
+
+    // Версия и время изменения — основа ETag и Last-Modified публичных ответов
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedOn;
 
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,26 @@
+package ru.practicum.ewmservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Поисковое представление события: генерируемая колонка search_vector таблицы events.
+ * Вынесено в отдельную сущность, чтобы tsvector не загружался вместе с Event.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Immutable
+@Table(name = "events")
+public class EventSearchDocument {
+    @Id
+    private Long id;
+
+    @Column(columnDefinition = "tsvector", insertable = false, updatable = false)
+    private String searchVector;
+}
@@ -0,0 +1,5 @@
+package ru.practicum.ewmservice.model;
+
+public enum RegistrationStatus {
+    QUEUED, ACCEPTED, REJECTED
+}
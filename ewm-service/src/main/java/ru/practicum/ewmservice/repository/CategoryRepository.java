@@ -1,8 +1,21 @@
 package ru.practicum.ewmservice.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.ewmservice.model.Category;
 
+import java.util.List;
+
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     Boolean existsByName(String name);
-}
\ No newline at end of file
+
+    @Query(value = "SELECT CAST(version AS VARCHAR), updated_on FROM categories WHERE id = :catId", nativeQuery = true)
+    List<Object[]> findVersionById(@Param("catId") Long catId);
+
+    // Число категорий, наибольший id и сумма версий: изменение увеличивает сумму версий, удаление уменьшает
+    // число, созданная категория получает id больше прежних. Агрегаты без сортировки и сборки строк
+    @Query(value = "SELECT CONCAT_WS('-', COUNT(*), COALESCE(MAX(id), 0), COALESCE(SUM(version), 0)) FROM categories",
+            nativeQuery = true)
+    String findListVersion();
+}
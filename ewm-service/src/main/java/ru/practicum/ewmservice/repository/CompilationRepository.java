@@ -1,16 +1,67 @@
 package ru.practicum.ewmservice.repository;
 
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.ewmservice.model.Compilation;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
 
-    @Query("SELECT c FROM Compilation c WHERE " +
-            "(:pinned IS NULL OR c.pinned = :pinned)")
-    List<Compilation> findCompilations(@Param("pinned") Boolean pinned, Pageable pageable);
-}
\ No newline at end of file
+    // Версия события подборки в ETag: всё, что попадает в его EventShortDto
+    String EVENT_VERSION = "e.id || ':' || e.version || ':' || e.confirmed_requests || ':' || e.likes || ':' || " +
+            "e.dislikes || ':' || e.views || ':' || cat.version";
+
+    String EVENT_JOINS = "LEFT JOIN compilation_events ce ON ce.compilation_id = c.id " +
+            "LEFT JOIN events e ON e.id = ce.event_id " +
+            "LEFT JOIN categories cat ON cat.id = e.category_id ";
+
+    @EntityGraph("Compilation.withEvents")
+    Optional<Compilation> findWithEventsById(Long id);
+
+    // Страницы подборок берутся из кеша запросов, сами подборки — из кеша второго уровня
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "compilation-queries")
+    })
+    Window<Compilation> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "compilation-queries")
+    })
+    Window<Compilation> findByPinned(Boolean pinned, ScrollPosition position, Sort sort, Limit limit);
+
+    /**
+     * Хеш версий подборки, её событий (со счётчиками и просмотрами) и их категорий для ETag
+     * и время последнего изменения любого из них.
+     */
+    @Query(value = "SELECT MD5(c.version || '|' || COALESCE(STRING_AGG(" + EVENT_VERSION + ", ',' ORDER BY e.id), '')), " +
+            "GREATEST(c.updated_on, MAX(e.updated_on), MAX(cat.updated_on)) " +
+            "FROM compilations c " + EVENT_JOINS +
+            "WHERE c.id = :compId GROUP BY c.id",
+            nativeQuery = true)
+    List<Object[]> findVersionById(@Param("compId") Long compId);
+
+    /**
+     * Версия списка подборок: как у списка категорий — число, наибольший id и сумма версий подборок
+     * (изменение состава подборки увеличивает её версию), и последнее изменение их событий и категорий.
+     */
+    @Query(value = "SELECT CONCAT_WS('-', COUNT(*), COALESCE(MAX(id), 0), COALESCE(SUM(version), 0), " +
+            "(SELECT COALESCE(EXTRACT(EPOCH FROM GREATEST(MAX(e.updated_on), MAX(cat.updated_on))), 0) " +
+            "FROM compilation_events ce JOIN events e ON e.id = ce.event_id " +
+            "JOIN categories cat ON cat.id = e.category_id)) " +
+            "FROM compilations",
+            nativeQuery = true)
+    String findListVersion();
+}
@@ -1,10 +1,19 @@
 package ru.practicum.ewmservice.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ewmservice.dto.RatingStatsDto;
 import ru.practicum.ewmservice.model.Event;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +24,192 @@ public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecific
 
     List<Event> findByCategoryId(Long categoryId);
 
-}
\ No newline at end of file
+    // Native UPDATE без указания затрагиваемой таблицы сбрасывает весь кеш второго уровня
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "events"))
+    @Query(value = "UPDATE events SET confirmed_requests = confirmed_requests + :delta, " +
+            "updated_on = LOCALTIMESTAMP WHERE id = :eventId",
+            nativeQuery = true)
+    int incrementConfirmedRequests(@Param("eventId") Long eventId, @Param("delta") long delta);
+
+    /**
+     * Занимает одно место на событии, если лимит участников не исчерпан; 0 — свободных мест нет.
+     * Проверка и увеличение выполняются одним UPDATE, поэтому параллельные заявки не переполняют событие.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "events"))
+    @Query(value = "UPDATE events SET confirmed_requests = confirmed_requests + 1, updated_on = LOCALTIMESTAMP " +
+            "WHERE id = :eventId AND (participant_limit = 0 OR confirmed_requests < participant_limit)",
+            nativeQuery = true)
+    int reserveSeat(@Param("eventId") Long eventId);
+
+    /**
+     * Занимает до seats мест на событии одним UPDATE и возвращает число занятых; пустой список — свободных мест нет.
+     * Прежнее значение счётчика читается с блокировкой в том же запросе, поэтому разница с новым точна.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "events"))
+    @Query(value = "UPDATE events e SET confirmed_requests = CASE WHEN e.participant_limit = 0 " +
+            "THEN e.confirmed_requests + :seats " +
+            "ELSE LEAST(e.participant_limit, e.confirmed_requests + :seats) END, " +
+            "updated_on = LOCALTIMESTAMP " +
+            "FROM (SELECT id, confirmed_requests FROM events WHERE id = :eventId FOR UPDATE) old " +
+            "WHERE e.id = old.id AND (e.participant_limit = 0 OR e.confirmed_requests < e.participant_limit) " +
+            "RETURNING e.confirmed_requests - old.confirmed_requests",
+            nativeQuery = true)
+    List<Number> claimSeats(@Param("eventId") Long eventId, @Param("seats") long seats);
+
+    /**
+     * Добавляет приращения лайков и дизлайков к событиям и тем же запросом — к репутации их инициаторов.
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "events"))
+    @Query(value = "WITH updated AS (" +
+            "UPDATE events e SET likes = e.likes + v.likes, dislikes = e.dislikes + v.dislikes, " +
+            "updated_on = LOCALTIMESTAMP " +
+            "FROM unnest(CAST(:ids AS BIGINT[]), CAST(:likes AS BIGINT[]), CAST(:dislikes AS BIGINT[])) " +
+            "AS v(id, likes, dislikes) " +
+            "WHERE e.id = v.id " +
+            "RETURNING e.initiator_id, v.likes - v.dislikes AS delta) " +
+            "INSERT INTO user_reputation (user_id, rating) " +
+            "SELECT initiator_id, SUM(delta) FROM updated GROUP BY initiator_id " +
+            "ON CONFLICT (user_id) DO UPDATE SET rating = user_reputation.rating + EXCLUDED.rating",
+            nativeQuery = true)
+    int addRatingCounters(@Param("ids") Long[] ids, @Param("likes") Long[] likes, @Param("dislikes") Long[] dislikes);
+
+    @Query("SELECT e.id, e.confirmedRequests, e.likes, e.dislikes FROM Event e " +
+            "WHERE e.id > :afterId ORDER BY e.id")
+    List<Object[]> findCountersAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Опубликованные события по убыванию материализованного рейтинга; страница читается по индексу
+     * ix_events_state_rating.
+     */
+    @Query("SELECT new ru.practicum.ewmservice.dto.RatingStatsDto(" +
+            "e.id, e.title, e.initiator.id, e.initiator.name, e.likes, e.dislikes, e.rating) " +
+            "FROM Event e " +
+            "WHERE e.state = ru.practicum.ewmservice.model.EventState.PUBLISHED " +
+            "ORDER BY e.rating DESC, e.id")
+    List<RatingStatsDto> findTopRated(Pageable pageable);
+
+    @Query("SELECT new ru.practicum.ewmservice.dto.RatingStatsDto(" +
+            "e.id, e.title, e.initiator.id, e.initiator.name, e.likes, e.dislikes, e.rating) " +
+            "FROM Event e " +
+            "WHERE e.state = ru.practicum.ewmservice.model.EventState.PUBLISHED " +
+            "ORDER BY e.hotScore DESC, e.id")
+    List<RatingStatsDto> findHot(Pageable pageable);
+
+    @Query("SELECT e.id, e.title, e.annotation, e.category.id, e.paid, e.eventDate FROM Event e " +
+            "WHERE e.state = ru.practicum.ewmservice.model.EventState.PUBLISHED AND e.id > :afterId ORDER BY e.id")
+    List<Object[]> findPublishedForIndexAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Опубликованные события для поискового индекса: id, category_id, paid, event_date
+     * и лексемы search_vector через пробел.
+     */
+    @Query(value = "SELECT id, category_id, paid, event_date, " +
+            "array_to_string(tsvector_to_array(search_vector), ' ') " +
+            "FROM events WHERE state = 'PUBLISHED' AND id > :afterId ORDER BY id LIMIT :limit",
+            nativeQuery = true)
+    List<Object[]> findPublishedSearchLexemesAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    @Query(value = "SELECT array_to_string(tsvector_to_array(search_vector), ' ') FROM events WHERE id = :eventId",
+            nativeQuery = true)
+    List<String> findSearchLexemes(@Param("eventId") Long eventId);
+
+    @Query("SELECT e.id FROM Event e " +
+            "WHERE e.state = ru.practicum.ewmservice.model.EventState.PUBLISHED AND e.highDemand = true")
+    List<Long> findHighDemandIds();
+
+    @Query("SELECT e.id FROM Event e " +
+            "WHERE e.state = ru.practicum.ewmservice.model.EventState.PUBLISHED AND e.id > :afterId ORDER BY e.id")
+    List<Long> findPublishedIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Версия опубликованного события для ETag и время его последнего изменения.
+     * Просмотры берутся материализованные, поэтому ETag меняется не чаще их синхронизации; ответ же содержит
+     * живые просмотры и несохранённые оценки, поэтому ETag события слабый.
+     */
+    @Query(value = "SELECT CONCAT_WS('-', e.version, e.confirmed_requests, e.likes, e.dislikes, e.views, c.version), " +
+            "GREATEST(e.updated_on, c.updated_on) " +
+            "FROM events e JOIN categories c ON c.id = e.category_id " +
+            "WHERE e.id = :eventId AND e.state = 'PUBLISHED'",
+            nativeQuery = true)
+    List<Object[]> findPublishedVersion(@Param("eventId") Long eventId);
+
+    /**
+     * Агрегаты опубликованных событий по ячейкам сетки cellHeight x cellWidth градусов внутри прямоугольника:
+     * строка и столбец ячейки от (-90, -180), число событий, центроид и минимальный id.
+     * Границы min включаются, max — нет, кроме полюса и антимеридиана.
+     */
+    default List<Object[]> findClusterCells(double minLat, double maxLat, double minLon, double maxLon,
+                                            double cellHeight, double cellWidth) {
+        return findClusterCellsInBand(GeoGrid.bandStart(minLat), GeoGrid.bandEnd(maxLat),
+                minLat, maxLat >= 90 ? Double.MAX_VALUE : maxLat,
+                minLon, maxLon >= 180 ? Double.MAX_VALUE : maxLon,
+                cellHeight, cellWidth);
+    }
+
+    @Query(value = "SELECT FLOOR((e.location_lat + 90) / :cellHeight) AS cell_row, " +
+            "FLOOR((e.location_lon + 180) / :cellWidth) AS cell_column, " +
+            "COUNT(*), AVG(e.location_lat), AVG(e.location_lon), MIN(e.id) " +
+            "FROM events e " +
+            "WHERE e.state = 'PUBLISHED' AND e.location_cell BETWEEN :firstCell AND :lastCell " +
+            "AND e.location_lat >= :minLat AND e.location_lat < :maxLat " +
+            "AND e.location_lon >= :minLon AND e.location_lon < :maxLon " +
+            "GROUP BY cell_row, cell_column",
+            nativeQuery = true)
+    List<Object[]> findClusterCellsInBand(@Param("firstCell") int firstCell,
+                                          @Param("lastCell") int lastCell,
+                                          @Param("minLat") double minLat,
+                                          @Param("maxLat") double maxLat,
+                                          @Param("minLon") double minLon,
+                                          @Param("maxLon") double maxLon,
+                                          @Param("cellHeight") double cellHeight,
+                                          @Param("cellWidth") double cellWidth);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "events"))
+    @Query(value = "UPDATE events e SET views = v.views, updated_on = LOCALTIMESTAMP " +
+            "FROM unnest(CAST(:ids AS BIGINT[]), CAST(:views AS BIGINT[])) AS v(id, views) " +
+            "WHERE e.id = v.id AND e.views <> v.views",
+            nativeQuery = true)
+    int updateViews(@Param("ids") Long[] ids, @Param("views") Long[] views);
+
+    @Query(value = "SELECT event_id, score, scored_at FROM event_trending", nativeQuery = true)
+    List<Object[]> findTrendingScores();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "event_trending"))
+    @Query(value = "INSERT INTO event_trending (event_id, score, scored_at) " +
+            "SELECT v.event_id, v.score, :scoredAt " +
+            "FROM unnest(CAST(:ids AS BIGINT[]), CAST(:scores AS DOUBLE PRECISION[])) AS v(event_id, score) " +
+            "JOIN events e ON e.id = v.event_id " +
+            "ON CONFLICT (event_id) DO UPDATE SET score = EXCLUDED.score, scored_at = EXCLUDED.scored_at",
+            nativeQuery = true)
+    int saveTrendingScores(@Param("ids") Long[] ids,
+                           @Param("scores") Double[] scores,
+                           @Param("scoredAt") LocalDateTime scoredAt);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "event_trending"))
+    @Query(value = "DELETE FROM event_trending WHERE event_id <> ALL (CAST(:ids AS BIGINT[]))", nativeQuery = true)
+    int deleteTrendingScoresExcept(@Param("ids") Long[] ids);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "events"))
+    @Query(value = "UPDATE events SET confirmed_requests = :confirmed, likes = :likes, dislikes = :dislikes, " +
+            "updated_on = LOCALTIMESTAMP " +
+            "WHERE id = :eventId AND confirmed_requests = :expectedConfirmed " +
+            "AND likes = :expectedLikes AND dislikes = :expectedDislikes",
+            nativeQuery = true)
+    int repairCounters(@Param("eventId") Long eventId,
+                       @Param("confirmed") long confirmed,
+                       @Param("likes") long likes,
+                       @Param("dislikes") long dislikes,
+                       @Param("expectedConfirmed") long expectedConfirmed,
+                       @Param("expectedLikes") long expectedLikes,
+                       @Param("expectedDislikes") long expectedDislikes);
+}
@@ -0,0 +1,205 @@
+package ru.practicum.ewmservice.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.OffsetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+import ru.practicum.ewmservice.dto.CategoryDto;
+import ru.practicum.ewmservice.dto.EventShortDto;
+import ru.practicum.ewmservice.dto.UserDto;
+import ru.practicum.ewmservice.model.Category;
+import ru.practicum.ewmservice.model.Compilation;
+import ru.practicum.ewmservice.model.Event;
+import ru.practicum.ewmservice.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only выборки для EventShortDto: запрашиваются только нужные DTO колонки, DTO строятся
+ * прямо из кортежей, без управляемых сущностей и без чтения description.
+ * Просмотры в DTO — материализованные, актуальные подставляет EventEnricher.
+ */
+@Repository
+public class EventShortDtoRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Страница событий по спецификации. Позиция — смещение или keyset по ключам сортировки,
+     * которые должны заканчиваться id. Спецификация не должна содержать fetch join.
+     */
+    public Window<EventShortDto> findAll(Specification<Event> specification, Sort sort,
+                                         ScrollPosition position, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Event> event = query.from(Event.class);
+        selectShortDto(query, event);
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate predicate = specification.toPredicate(event, query, cb);
+        if (predicate != null) {
+            predicates.add(predicate);
+        }
+        if (position instanceof KeysetScrollPosition keyset && !keyset.isInitial()) {
+            predicates.add(keysetPredicate(cb, event, sort, keyset.getKeys()));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        // Без сортировки остаётся порядок, заданный спецификацией (например, по релевантности)
+        if (sort.isSorted()) {
+            query.orderBy(toOrders(cb, event, sort));
+        }
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query).setMaxResults(limit + 1);
+        if (position instanceof OffsetScrollPosition offset && !offset.isInitial()) {
+            typedQuery.setFirstResult(Math.toIntExact(offset.getOffset()) + 1);
+        }
+
+        List<EventShortDto> events = typedQuery.getResultList().stream()
+                .map(this::toShortDto)
+                .toList();
+        boolean hasNext = events.size() > limit;
+        return Window.from(hasNext ? events.subList(0, limit) : events, ScrollPosition::offset, hasNext);
+    }
+
+    /**
+     * События по id в порядке возрастания id.
+     */
+    public List<EventShortDto> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Event> event = query.from(Event.class);
+        selectShortDto(query, event);
+        query.where(event.get("id").in(ids));
+        query.orderBy(cb.asc(event.get("id")));
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(this::toShortDto)
+                .toList();
+    }
+
+    /**
+     * События подборок одним запросом: id подборки -> события в порядке возрастания id.
+     */
+    public Map<Long, List<EventShortDto>> findByCompilationIds(Collection<Long> compilationIds) {
+        Map<Long, List<EventShortDto>> result = new LinkedHashMap<>();
+        if (compilationIds.isEmpty()) {
+            return result;
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Compilation> compilation = query.from(Compilation.class);
+        Join<Compilation, Event> event = compilation.join("events");
+        List<Selection<?>> selections = new ArrayList<>(shortDtoSelections(event));
+        selections.add(compilation.get("id").alias("compilationId"));
+        query.multiselect(selections);
+        query.where(compilation.get("id").in(compilationIds));
+        query.orderBy(cb.asc(compilation.get("id")), cb.asc(event.get("id")));
+
+        for (Tuple tuple : entityManager.createQuery(query).getResultList()) {
+            result.computeIfAbsent(tuple.get("compilationId", Long.class), id -> new ArrayList<>())
+                    .add(toShortDto(tuple));
+        }
+        return result;
+    }
+
+    private void selectShortDto(CriteriaQuery<Tuple> query, From<?, Event> event) {
+        query.multiselect(shortDtoSelections(event));
+    }
+
+    private List<Selection<?>> shortDtoSelections(From<?, Event> event) {
+        Join<Event, Category> category = event.join("category");
+        Join<Event, User> initiator = event.join("initiator");
+        return List.of(
+                event.get("id").alias("id"),
+                event.get("title").alias("title"),
+                event.get("annotation").alias("annotation"),
+                category.get("id").alias("categoryId"),
+                category.get("name").alias("categoryName"),
+                initiator.get("id").alias("initiatorId"),
+                initiator.get("name").alias("initiatorName"),
+                initiator.get("email").alias("initiatorEmail"),
+                event.get("eventDate").alias("eventDate"),
+                event.get("paid").alias("paid"),
+                event.get("views").alias("views"),
+                event.get("confirmedRequests").alias("confirmedRequests"),
+                event.get("likes").alias("likes"),
+                event.get("dislikes").alias("dislikes"),
+                event.get("hotScore").alias("hotScore"));
+    }
+
+    private EventShortDto toShortDto(Tuple tuple) {
+        EventShortDto dto = new EventShortDto();
+        dto.setId(tuple.get("id", Long.class));
+        dto.setTitle(tuple.get("title", String.class));
+        dto.setAnnotation(tuple.get("annotation", String.class));
+        dto.setCategory(new CategoryDto(tuple.get("categoryId", Long.class), tuple.get("categoryName", String.class)));
+        dto.setInitiator(UserDto.builder()
+                .id(tuple.get("initiatorId", Long.class))
+                .name(tuple.get("initiatorName", String.class))
+                .email(tuple.get("initiatorEmail", String.class))
+                .rating(0L)
+                .build());
+        dto.setEventDate(tuple.get("eventDate", LocalDateTime.class));
+        dto.setPaid(tuple.get("paid", Boolean.class));
+        dto.setViews(tuple.get("views", Long.class));
+        dto.setConfirmedRequests(tuple.get("confirmedRequests", Long.class));
+        dto.setLikes(tuple.get("likes", Long.class));
+        dto.setDislikes(tuple.get("dislikes", Long.class));
+        dto.setRating(dto.getLikes() - dto.getDislikes());
+        dto.setHotScore(tuple.get("hotScore", Double.class));
+        return dto;
+    }
+
+    private List<Order> toOrders(CriteriaBuilder cb, Root<Event> event, Sort sort) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            Path<?> path = event.get(order.getProperty());
+            orders.add(order.isAscending() ? cb.asc(path) : cb.desc(path));
+        }
+        return orders;
+    }
+
+    // (k1 > v1) OR (k1 = v1 AND k2 > v2) OR ... с учётом направления каждого ключа
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate keysetPredicate(CriteriaBuilder cb, Root<Event> event, Sort sort, Map<String, Object> keys) {
+        List<Predicate> alternatives = new ArrayList<>();
+        List<Predicate> equalities = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            Expression<Comparable> path = event.get(order.getProperty());
+            Comparable value = (Comparable) keys.get(order.getProperty());
+            Predicate beyond = order.isAscending() ? cb.greaterThan(path, value) : cb.lessThan(path, value);
+
+            List<Predicate> alternative = new ArrayList<>(equalities);
+            alternative.add(beyond);
+            alternatives.add(cb.and(alternative.toArray(new Predicate[0])));
+            equalities.add(cb.equal(path, value));
+        }
+        return cb.or(alternatives.toArray(new Predicate[0]));
+    }
+}
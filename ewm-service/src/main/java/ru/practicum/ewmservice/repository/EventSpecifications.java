@@ -1,7 +1,16 @@
 package ru.practicum.ewmservice.repository;
 
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaEntityJoin;
+import org.hibernate.query.criteria.JpaRoot;
 import org.springframework.data.jpa.domain.Specification;
 import ru.practicum.ewmservice.model.Event;
+import ru.practicum.ewmservice.model.EventSearchDocument;
 import ru.practicum.ewmservice.model.EventState;
 
 import java.time.LocalDateTime;
@@ -9,16 +18,34 @@ import java.util.List;
 
 public class EventSpecifications {
 
-    public static Specification<Event> hasTextInAnnotationOrDescription(String text) {
+    /**
+     * Полнотекстовый поиск по названию, аннотации и описанию через GIN-индекс search_vector.
+     * Последнее слово простого текста ищется по префиксу; остальной текст разбирается websearch_to_tsquery,
+     * поэтому поддерживаются кавычки, OR и минус (см. {@link SearchText}).
+     * При orderByRelevance результаты упорядочиваются по ts_rank, а pageable должен быть без сортировки.
+     */
+    public static Specification<Event> matchesText(String text, boolean orderByRelevance) {
         return (root, query, criteriaBuilder) -> {
             if (text == null || text.isBlank()) {
                 return criteriaBuilder.conjunction();
             }
-            String likePattern = "%" + text.toLowerCase() + "%";
-            return criteriaBuilder.or(
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("annotation")), likePattern),
-                    criteriaBuilder.like(criteriaBuilder.lower(root.get("description")), likePattern)
-            );
+            JpaEntityJoin<EventSearchDocument> document = ((JpaRoot<Event>) root).join(EventSearchDocument.class);
+            document.on(criteriaBuilder.equal(document.get("id"), root.get("id")));
+
+            List<String> terms = SearchText.plainTerms(text);
+            boolean prefix = !terms.isEmpty();
+            // value() передаёт текст как bind-параметр, а не как литерал в SQL
+            Expression<String> searchQuery = ((HibernateCriteriaBuilder) criteriaBuilder)
+                    .value(prefix ? SearchText.prefixQuery(terms) : text.trim());
+            if (orderByRelevance && !Long.class.equals(query.getResultType())) {
+                Expression<Double> rank = criteriaBuilder.function(
+                        prefix ? SearchFunctionContributor.FTS_PREFIX_RANK : SearchFunctionContributor.FTS_RANK,
+                        Double.class, document.get("searchVector"), searchQuery);
+                query.orderBy(criteriaBuilder.desc(rank), criteriaBuilder.asc(root.get("id")));
+            }
+            return criteriaBuilder.isTrue(criteriaBuilder.function(
+                    prefix ? SearchFunctionContributor.FTS_PREFIX_MATCH : SearchFunctionContributor.FTS_MATCH,
+                    Boolean.class, document.get("searchVector"), searchQuery));
         };
     }
 
@@ -73,8 +100,119 @@ public class EventSpecifications {
         };
     }
 
+    /**
+     * Загружает категорию и инициатора тем же запросом, что и события страницы.
+     */
+    public static Specification<Event> fetchCategoryAndInitiator() {
+        return (root, query, criteriaBuilder) -> {
+            // В count-запросе fetch join недопустим
+            if (!Long.class.equals(query.getResultType())) {
+                root.fetch("category");
+                root.fetch("initiator");
+            }
+            return criteriaBuilder.conjunction();
+        };
+    }
+
+    /**
+     * Есть свободные места: лимит не задан или подтверждённых заявок меньше лимита.
+     */
+    public static Specification<Event> isAvailable(Boolean onlyAvailable) {
+        return (root, query, criteriaBuilder) -> {
+            if (onlyAvailable == null || !onlyAvailable) {
+                return criteriaBuilder.conjunction();
+            }
+            Path<Integer> participantLimit = root.get("participantLimit");
+            return criteriaBuilder.or(
+                    criteriaBuilder.equal(participantLimit, 0),
+                    criteriaBuilder.lessThan(root.get("confirmedRequests"), participantLimit.as(Long.class))
+            );
+        };
+    }
+
+    /**
+     * Места проведения в радиусе radiusKm от точки: грубый отбор по индексу location_cell,
+     * затем точное расстояние по формуле гаверсинусов.
+     */
+    public static Specification<Event> isWithinRadius(Double lat, Double lon, Double radiusKm) {
+        return (root, query, criteriaBuilder) -> {
+            if (lat == null || lon == null || radiusKm == null) {
+                return criteriaBuilder.conjunction();
+            }
+            double deltaLat = radiusKm / GeoGrid.KM_PER_DEGREE;
+            double minLat = Math.max(lat - deltaLat, -90);
+            double maxLat = Math.min(lat + deltaLat, 90);
+            double minLon = -180;
+            double maxLon = 180;
+            // У полюсов и для больших радиусов круг покрывает все долготы
+            double lonRatio = Math.sin(radiusKm / GeoGrid.EARTH_RADIUS_KM) / Math.cos(Math.toRadians(lat));
+            if (minLat > -90 && maxLat < 90 && lonRatio < 1) {
+                double deltaLon = Math.toDegrees(Math.asin(lonRatio));
+                minLon = normalizeLon(lon - deltaLon);
+                maxLon = normalizeLon(lon + deltaLon);
+            }
+            return criteriaBuilder.and(
+                    GeoGrid.covering(criteriaBuilder, root.get("locationCell"), minLat, maxLat, minLon, maxLon),
+                    criteriaBuilder.le(distanceKm(root, criteriaBuilder, lat, lon), radiusKm)
+            );
+        };
+    }
+
+    /**
+     * Места проведения внутри прямоугольника [minLon, minLat, maxLon, maxLat];
+     * minLon > maxLon означает переход через антимеридиан.
+     */
+    public static Specification<Event> isInBoundingBox(List<Double> bbox) {
+        return (root, query, criteriaBuilder) -> {
+            if (bbox == null) {
+                return criteriaBuilder.conjunction();
+            }
+            double minLon = bbox.get(0);
+            double minLat = bbox.get(1);
+            double maxLon = bbox.get(2);
+            double maxLat = bbox.get(3);
+            Expression<Double> eventLat = root.get("location").get("lat").as(Double.class);
+            Expression<Double> eventLon = root.get("location").get("lon").as(Double.class);
+            Predicate lonPredicate = minLon <= maxLon
+                    ? criteriaBuilder.between(eventLon, minLon, maxLon)
+                    : criteriaBuilder.or(criteriaBuilder.ge(eventLon, minLon), criteriaBuilder.le(eventLon, maxLon));
+            return criteriaBuilder.and(
+                    GeoGrid.covering(criteriaBuilder, root.get("locationCell"), minLat, maxLat, minLon, maxLon),
+                    criteriaBuilder.between(eventLat, minLat, maxLat),
+                    lonPredicate
+            );
+        };
+    }
+
+    /**
+     * Сортировка по расстоянию до точки, при равенстве по id; pageable должен быть без сортировки.
+     */
+    public static Specification<Event> orderByDistance(Double lat, Double lon) {
+        return (root, query, criteriaBuilder) -> {
+            if (!Long.class.equals(query.getResultType())) {
+                query.orderBy(criteriaBuilder.asc(distanceKm(root, criteriaBuilder, lat, lon)),
+                        criteriaBuilder.asc(root.get("id")));
+            }
+            return criteriaBuilder.conjunction();
+        };
+    }
+
     public static Specification<Event> isPublished() {
         return (root, query, criteriaBuilder) ->
                 criteriaBuilder.equal(root.get("state"), EventState.PUBLISHED);
     }
+
+    private static Expression<Double> distanceKm(Root<Event> root, CriteriaBuilder criteriaBuilder,
+                                                 double lat, double lon) {
+        return criteriaBuilder.function(SearchFunctionContributor.GEO_DISTANCE_KM, Double.class,
+                root.get("location").get("lat"), root.get("location").get("lon"),
+                criteriaBuilder.literal(lat), criteriaBuilder.literal(lon));
+    }
+
+    private static double normalizeLon(double lon) {
+        if (lon < -180) {
+            return lon + 360;
+        }
+        return lon > 180 ? lon - 360 : lon;
+    }
 }
\ No newline at end of file
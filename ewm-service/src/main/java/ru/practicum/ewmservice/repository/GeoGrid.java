@@ -0,0 +1,81 @@
+package ru.practicum.ewmservice.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сетка 0.1° x 0.1° для колонки events.location_cell: номер ячейки = строка по широте * 3600 + столбец по долготе.
+ * Формула должна совпадать с генерируемой колонкой в schema.sql.
+ * <p>
+ * Прямоугольник покрывается диапазонами номеров ячеек по одному на строку сетки, поэтому условие
+ * обслуживается B-tree индексом; точную проверку координат делает вызывающая спецификация.
+ */
+final class GeoGrid {
+
+    static final double EARTH_RADIUS_KM = 6371.0;
+    static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    private static final int CELLS_PER_DEGREE = 10;
+    private static final int ROWS = 180 * CELLS_PER_DEGREE;
+    private static final int COLUMNS = 360 * CELLS_PER_DEGREE;
+    // При большем числе строк диапазоны по строкам заменяются одним диапазоном по полосе широт
+    private static final int MAX_ROW_RANGES = 32;
+
+    private GeoGrid() {
+    }
+
+    /**
+     * Условие на номер ячейки для прямоугольника; minLon > maxLon означает переход через антимеридиан.
+     */
+    static Predicate covering(CriteriaBuilder cb, Expression<Integer> cell,
+                              double minLat, double maxLat, double minLon, double maxLon) {
+        // Ячейка запаса с каждой стороны компенсирует расхождение округления float в БД и double здесь
+        int firstRow = Math.max(row(minLat) - 1, 0);
+        int lastRow = Math.min(row(maxLat) + 1, ROWS - 1);
+        if (lastRow - firstRow + 1 > MAX_ROW_RANGES) {
+            return cb.between(cell, firstRow * COLUMNS, lastRow * COLUMNS + COLUMNS - 1);
+        }
+
+        List<int[]> columns = new ArrayList<>();
+        if (minLon <= maxLon) {
+            columns.add(new int[]{Math.max(column(minLon) - 1, 0), Math.min(column(maxLon) + 1, COLUMNS - 1)});
+        } else {
+            columns.add(new int[]{Math.max(column(minLon) - 1, 0), COLUMNS - 1});
+            columns.add(new int[]{0, Math.min(column(maxLon) + 1, COLUMNS - 1)});
+        }
+
+        List<Predicate> ranges = new ArrayList<>();
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int[] range : columns) {
+                ranges.add(cb.between(cell, row * COLUMNS + range[0], row * COLUMNS + range[1]));
+            }
+        }
+        return cb.or(ranges.toArray(new Predicate[0]));
+    }
+
+    /**
+     * Первая ячейка полосы строк сетки, содержащей широту.
+     */
+    static int bandStart(double lat) {
+        return Math.max(row(lat) - 1, 0) * COLUMNS;
+    }
+
+    /**
+     * Последняя ячейка полосы строк сетки, содержащей широту.
+     */
+    static int bandEnd(double lat) {
+        return Math.min(row(lat) + 1, ROWS - 1) * COLUMNS + COLUMNS - 1;
+    }
+
+    private static int row(double lat) {
+        return Math.min((int) Math.floor((lat + 90) * CELLS_PER_DEGREE), ROWS - 1);
+    }
+
+    private static int column(double lon) {
+        return Math.min((int) Math.floor((lon + 180) * CELLS_PER_DEGREE), COLUMNS - 1);
+    }
+}
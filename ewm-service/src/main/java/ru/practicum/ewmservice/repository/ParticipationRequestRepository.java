@@ -4,8 +4,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.ewmservice.model.ParticipationRequest;
-import ru.practicum.ewmservice.model.RequestStatus;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,11 +17,58 @@ public interface ParticipationRequestRepository extends JpaRepository<Participat
 
     Optional<ParticipationRequest> findByEventIdAndRequesterId(Long eventId, Long requesterId);
 
-    List<ParticipationRequest> findByIdIn(List<Long> requestIds);
+    @Query("SELECT pr.requester.id FROM ParticipationRequest pr " +
+            "WHERE pr.event.id = :eventId AND pr.requester.id IN :requesterIds")
+    List<Long> findRequesterIds(@Param("eventId") Long eventId,
+                                @Param("requesterIds") Collection<Long> requesterIds);
 
-    @Query("SELECT COUNT(pr) FROM ParticipationRequest pr WHERE pr.event.id = :eventId AND pr.status = 'CONFIRMED'")
-    Long getConfirmedRequestsCount(@Param("eventId") Long eventId);
+    /**
+     * Создаёт заявки пользователей на событие одним INSERT в порядке списка. Заявки, уже существующие
+     * к моменту вставки, пропускаются. Возвращает созданные заявки: id, created, event_id, requester_id, status.
+     */
+    @Query(value = "INSERT INTO participation_requests (event_id, requester_id, status, created) " +
+            "SELECT :eventId, v.requester_id, :status, :created " +
+            "FROM unnest(CAST(:requesterIds AS BIGINT[])) WITH ORDINALITY AS v(requester_id, position) " +
+            "ORDER BY v.position " +
+            "ON CONFLICT (event_id, requester_id) DO NOTHING " +
+            "RETURNING id, created, event_id, requester_id, status",
+            nativeQuery = true)
+    List<Object[]> insertRequests(@Param("eventId") Long eventId,
+                                  @Param("requesterIds") Long[] requesterIds,
+                                  @Param("status") String status,
+                                  @Param("created") LocalDateTime created);
 
-    @Query("SELECT COUNT(pr) FROM ParticipationRequest pr WHERE pr.event.id = :eventId AND pr.status = :status")
-    Long countByEventIdAndStatus(@Param("eventId") Long eventId, @Param("status") RequestStatus status);
+    /**
+     * Сколько заявок из списка относятся к другому событию и сколько из них не в статусе PENDING.
+     */
+    @Query(value = "SELECT COUNT(*) FILTER (WHERE event_id <> :eventId), " +
+            "COUNT(*) FILTER (WHERE status <> 'PENDING') " +
+            "FROM participation_requests WHERE id IN (:requestIds)",
+            nativeQuery = true)
+    List<Object[]> countStatusUpdateMismatches(@Param("eventId") Long eventId,
+                                               @Param("requestIds") Collection<Long> requestIds);
+
+    /**
+     * Подтверждает первые capacity заявок из списка в порядке создания, остальные отклоняет,
+     * если rejectOverflow, иначе оставляет в PENDING. Возвращает изменённые заявки:
+     * id, created, event_id, requester_id, status.
+     */
+    @Query(value = "WITH ranked AS (" +
+            "SELECT id, ROW_NUMBER() OVER (ORDER BY created, id) AS position FROM participation_requests " +
+            "WHERE id IN (:requestIds) AND event_id = :eventId AND status = 'PENDING') " +
+            "UPDATE participation_requests pr " +
+            "SET status = CASE WHEN r.position <= :capacity THEN 'CONFIRMED' ELSE 'REJECTED' END " +
+            "FROM ranked r " +
+            "WHERE pr.id = r.id AND pr.status = 'PENDING' AND (r.position <= :capacity OR :rejectOverflow) " +
+            "RETURNING pr.id, pr.created, pr.event_id, pr.requester_id, pr.status",
+            nativeQuery = true)
+    List<Object[]> updatePendingStatuses(@Param("eventId") Long eventId,
+                                         @Param("requestIds") Collection<Long> requestIds,
+                                         @Param("capacity") long capacity,
+                                         @Param("rejectOverflow") boolean rejectOverflow);
+
+    @Query("SELECT pr.event.id, COUNT(pr) FROM ParticipationRequest pr " +
+            "WHERE pr.event.id IN :eventIds AND pr.status = 'CONFIRMED' " +
+            "GROUP BY pr.event.id")
+    List<Object[]> countConfirmedByEventIds(@Param("eventIds") Collection<Long> eventIds);
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package ru.practicum.ewmservice.repository;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicTypeRegistry;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Регистрирует функции полнотекстового и геопоиска PostgreSQL для JPQL и Criteria API.
+ */
+public class SearchFunctionContributor implements FunctionContributor {
+
+    public static final String FTS_MATCH = "fts_match";
+    public static final String FTS_RANK = "fts_rank";
+    // Те же функции для запроса в синтаксисе to_tsquery, см. SearchText
+    public static final String FTS_PREFIX_MATCH = "fts_prefix_match";
+    public static final String FTS_PREFIX_RANK = "fts_prefix_rank";
+    // geo_distance_km(lat, lon, centerLat, centerLon): расстояние по формуле гаверсинусов
+    public static final String GEO_DISTANCE_KM = "geo_distance_km";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicTypeRegistry types = functionContributions.getTypeConfiguration().getBasicTypeRegistry();
+        functionContributions.getFunctionRegistry().registerPattern(FTS_MATCH,
+                "(?1 @@ websearch_to_tsquery('simple', ?2))",
+                types.resolve(StandardBasicTypes.BOOLEAN));
+        functionContributions.getFunctionRegistry().registerPattern(FTS_RANK,
+                "ts_rank(?1, websearch_to_tsquery('simple', ?2))",
+                types.resolve(StandardBasicTypes.DOUBLE));
+        functionContributions.getFunctionRegistry().registerPattern(FTS_PREFIX_MATCH,
+                "(?1 @@ to_tsquery('simple', ?2))",
+                types.resolve(StandardBasicTypes.BOOLEAN));
+        functionContributions.getFunctionRegistry().registerPattern(FTS_PREFIX_RANK,
+                "ts_rank(?1, to_tsquery('simple', ?2))",
+                types.resolve(StandardBasicTypes.DOUBLE));
+        functionContributions.getFunctionRegistry().registerPattern(GEO_DISTANCE_KM,
+                "(" + 2 * GeoGrid.EARTH_RADIUS_KM + " * asin(least(1.0, sqrt("
+                        + "power(sin(radians(?1 - ?3) / 2), 2)"
+                        + " + cos(radians(?3)) * cos(radians(?1)) * power(sin(radians(?2 - ?4) / 2), 2)))))",
+                types.resolve(StandardBasicTypes.DOUBLE));
+    }
+}
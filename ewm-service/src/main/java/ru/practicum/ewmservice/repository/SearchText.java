@@ -0,0 +1,43 @@
+package ru.practicum.ewmservice.repository;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Разбор текста публичного поиска событий. Простой текст — слова из букв и цифр через пробел — ищется
+ * как AND слов, последнее слово — по префиксу: "conf" находит "conference", как подстрока в поиске до FTS.
+ * Текст со знаками препинания, кавычками, минусом или OR целиком разбирает websearch_to_tsquery,
+ * без префиксного поиска.
+ */
+public final class SearchText {
+
+    // Цифры только ASCII: прочие цифры Unicode парсер PostgreSQL не считает частью слова
+    private static final Pattern PLAIN = Pattern.compile("[\\p{L}0-9]+(\\s+[\\p{L}0-9]+)*");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // В websearch_to_tsquery слово or — оператор
+    private static final String OR = "or";
+
+    private SearchText() {
+    }
+
+    /**
+     * Слова простого текста в нижнем регистре в порядке ввода; пустой список, если текст не простой.
+     */
+    public static List<String> plainTerms(String text) {
+        String trimmed = text.trim();
+        if (!PLAIN.matcher(trimmed).matches()) {
+            return List.of();
+        }
+        List<String> terms = List.of(WHITESPACE.split(trimmed.toLowerCase(Locale.ROOT)));
+        return terms.contains(OR) ? List.of() : terms;
+    }
+
+    /**
+     * Запрос для to_tsquery('simple', ...): слова через &amp;, последнее — с :*. Слова состоят только из букв
+     * и цифр, поэтому синтаксис tsquery в них не встречается.
+     */
+    static String prefixQuery(List<String> terms) {
+        return String.join(" & ", terms) + ":*";
+    }
+}
@@ -1,14 +1,73 @@
 package ru.practicum.ewmservice.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewmservice.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
-    List<User> findByIdIn(List<Long> ids, Pageable pageable);
-
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
     Optional<User> findByEmail(String email);
-}
\ No newline at end of file
+
+    @Query("SELECT u.id FROM User u WHERE u.id IN :userIds")
+    List<Long> findExistingIds(@Param("userIds") Collection<Long> userIds);
+
+    @Query(value = "SELECT user_id, rating FROM user_reputation WHERE user_id IN (:userIds)", nativeQuery = true)
+    List<Object[]> findReputations(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Инициаторы событий по убыванию репутации: id, имя, рейтинг.
+     */
+    @Query(value = "SELECT r.user_id, u.name, r.rating FROM user_reputation r " +
+            "JOIN users u ON u.id = r.user_id " +
+            "ORDER BY r.rating DESC, r.user_id",
+            nativeQuery = true)
+    List<Object[]> findTopByReputation(Pageable pageable);
+
+    @Modifying
+    @Query(value = "INSERT INTO user_reputation (user_id) VALUES (:userId) ON CONFLICT (user_id) DO NOTHING",
+            nativeQuery = true)
+    int addReputation(@Param("userId") Long userId);
+
+    /**
+     * Пользователи с id больше afterId: id, сумма рейтингов их событий, сохранённая репутация или null,
+     * число событий. Сумма и репутация читаются одним запросом, поэтому согласованы с сохранением счётчиков,
+     * которое меняет их в одной транзакции.
+     */
+    @Query(value = "SELECT u.id, COALESCE(SUM(e.likes - e.dislikes), 0), r.rating, COUNT(e.id) FROM users u " +
+            "LEFT JOIN user_reputation r ON r.user_id = u.id " +
+            "LEFT JOIN events e ON e.initiator_id = u.id " +
+            "WHERE u.id > :afterId " +
+            "GROUP BY u.id, r.rating " +
+            "ORDER BY u.id",
+            nativeQuery = true)
+    List<Object[]> findReputationsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Исправляет репутацию, только если она не изменилась с момента чтения.
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_reputation"))
+    @Query(value = "UPDATE user_reputation SET rating = :rating WHERE user_id = :userId AND rating = :expected",
+            nativeQuery = true)
+    int repairReputation(@Param("userId") Long userId, @Param("rating") long rating, @Param("expected") long expected);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_reputation"))
+    @Query(value = "INSERT INTO user_reputation (user_id, rating) VALUES (:userId, :rating) " +
+            "ON CONFLICT (user_id) DO NOTHING",
+            nativeQuery = true)
+    int insertReputation(@Param("userId") Long userId, @Param("rating") long rating);
+}
@@ -0,0 +1,18 @@
+package ru.practicum.ewmservice.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.ewmservice.model.User;
+
+import java.util.List;
+
+public class UserSpecifications {
+
+    public static Specification<User> hasIds(List<Long> ids) {
+        return (root, query, criteriaBuilder) -> {
+            if (ids == null || ids.isEmpty()) {
+                return criteriaBuilder.conjunction();
+            }
+            return root.get("id").in(ids);
+        };
+    }
+}
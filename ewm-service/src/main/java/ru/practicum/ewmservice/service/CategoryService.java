@@ -3,6 +3,7 @@ package ru.practicum.ewmservice.service;
 import ru.practicum.ewmservice.dto.CategoryDto;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface CategoryService {
     CategoryDto createCategory(CategoryDto categoryDto);
@@ -14,4 +15,8 @@ public interface CategoryService {
     List<CategoryDto> getCategories(Integer from, Integer size);
 
     CategoryDto getCategoryById(Long catId);
+
+    Optional<ResourceVersion> getCategoryVersion(Long catId);
+
+    ResourceVersion getCategoriesVersion();
 }
\ No newline at end of file
@@ -14,6 +14,7 @@ import ru.practicum.ewmservice.repository.CategoryRepository;
 import ru.practicum.ewmservice.repository.EventRepository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -76,6 +77,16 @@ public class CategoryServiceImpl implements CategoryService {
         return CategoryMapper.toCategoryDto(category);
     }
 
+    @Override
+    public Optional<ResourceVersion> getCategoryVersion(Long catId) {
+        return ResourceVersion.fromRows("category-" + catId + "-", categoryRepository.findVersionById(catId));
+    }
+
+    @Override
+    public ResourceVersion getCategoriesVersion() {
+        return ResourceVersion.of("categories-" + categoryRepository.findListVersion());
+    }
+
     private Category getCategoryByIdOrThrow(Long catId) {
         return categoryRepository.findById(catId)
                 .orElseThrow(() -> new NotFoundException("Category with id=" + catId + " not found"));
@@ -0,0 +1,7 @@
+package ru.practicum.ewmservice.service;
+
+/**
+ * Подборка создана, изменена или удалена; публикуется для пересборки снимков подборок.
+ */
+public record CompilationChange(Long compilationId) {
+}
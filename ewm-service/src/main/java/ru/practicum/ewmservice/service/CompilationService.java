@@ -4,7 +4,7 @@ import ru.practicum.ewmservice.dto.CompilationDto;
 import ru.practicum.ewmservice.dto.NewCompilationDto;
 import ru.practicum.ewmservice.dto.UpdateCompilationRequest;
 
-import java.util.List;
+import java.util.Optional;
 
 public interface CompilationService {
     CompilationDto createCompilation(NewCompilationDto newCompilationDto);
@@ -13,7 +13,11 @@ public interface CompilationService {
 
     CompilationDto updateCompilation(Long compId, UpdateCompilationRequest updateCompilationRequest);
 
-    List<CompilationDto> getCompilations(Boolean pinned, Integer from, Integer size);
+    CursorPage<CompilationDto> getCompilations(Boolean pinned, Integer from, Integer size, String after);
 
     CompilationDto getCompilationById(Long compId);
+
+    Optional<ResourceVersion> getCompilationVersion(Long compId);
+
+    ResourceVersion getCompilationsVersion();
 }
\ No newline at end of file
@@ -1,8 +1,11 @@
 package ru.practicum.ewmservice.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewmservice.dto.CompilationDto;
@@ -15,10 +18,11 @@ import ru.practicum.ewmservice.model.Compilation;
 import ru.practicum.ewmservice.model.Event;
 import ru.practicum.ewmservice.repository.CompilationRepository;
 import ru.practicum.ewmservice.repository.EventRepository;
+import ru.practicum.ewmservice.repository.EventShortDtoRepository;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -28,6 +32,9 @@ public class CompilationServiceImpl implements CompilationService {
     private final CompilationRepository compilationRepository;
     private final EventRepository eventRepository;
     private final CompilationMapper compilationMapper;
+    private final EventShortDtoRepository eventShortDtoRepository;
+    private final CompilationSnapshots compilationSnapshots;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -49,6 +56,7 @@ public class CompilationServiceImpl implements CompilationService {
         }
 
         Compilation savedCompilation = compilationRepository.save(compilation);
+        eventPublisher.publishEvent(new CompilationChange(savedCompilation.getId()));
         return compilationMapper.toCompilationDto(savedCompilation);
     }
 
@@ -59,6 +67,7 @@ public class CompilationServiceImpl implements CompilationService {
             throw new NotFoundException("Compilation with id=" + compId + " not found");
         }
         compilationRepository.deleteById(compId);
+        eventPublisher.publishEvent(new CompilationChange(compId));
     }
 
     @Override
@@ -84,11 +93,12 @@ public class CompilationServiceImpl implements CompilationService {
         }
 
         Compilation updatedCompilation = compilationRepository.save(compilation);
+        eventPublisher.publishEvent(new CompilationChange(compId));
         return compilationMapper.toCompilationDto(updatedCompilation);
     }
 
     @Override
-    public List<CompilationDto> getCompilations(Boolean pinned, Integer from, Integer size) {
+    public CursorPage<CompilationDto> getCompilations(Boolean pinned, Integer from, Integer size, String after) {
         if (from < 0) {
             throw new ValidationException("From must be non-negative");
         }
@@ -96,22 +106,45 @@ public class CompilationServiceImpl implements CompilationService {
             throw new ValidationException("Size must be positive");
         }
 
-        Pageable pageable = PageRequest.of(from / size, size);
-        List<Compilation> compilations = compilationRepository.findCompilations(pinned, pageable);
+        if (compilationSnapshots.isReady()) {
+            return compilationSnapshots.getPage(pinned, from, size, after);
+        }
+
+        Sort sorting = Sort.by("id").ascending();
+        ScrollPosition position = PageCursor.position(after, from, size, sorting);
+        Window<Compilation> window = pinned == null
+                ? compilationRepository.findAllBy(position, sorting, Limit.of(size))
+                : compilationRepository.findByPinned(pinned, position, sorting, Limit.of(size));
 
-        return compilations.stream()
-                .map(compilationMapper::toCompilationDto)
-                .collect(Collectors.toList());
+        return CursorPage.of(window, sorting, compilations -> compilationMapper.toCompilationDtos(compilations,
+                eventShortDtoRepository.findByCompilationIds(compilations.stream().map(Compilation::getId).toList())));
     }
 
     @Override
     public CompilationDto getCompilationById(Long compId) {
-        Compilation compilation = getCompilationByIdOrThrow(compId);
-        return compilationMapper.toCompilationDto(compilation);
+        // Снимка ещё нет у только что созданной подборки, пока её пересборка не выполнена
+        return compilationSnapshots.get(compId)
+                .orElseGet(() -> compilationMapper.toCompilationDto(getCompilationByIdOrThrow(compId)));
+    }
+
+    // ETag ответа из снимка должен описывать снимок, а не текущее состояние БД. Ответ без снимка
+    // собирается с живыми просмотрами и оценками, поэтому его ETag слабый
+    @Override
+    public Optional<ResourceVersion> getCompilationVersion(Long compId) {
+        return compilationSnapshots.getVersion(compId)
+                .or(() -> ResourceVersion.fromRows("compilation-" + compId + "-",
+                        compilationRepository.findVersionById(compId)).map(ResourceVersion::weak));
+    }
+
+    @Override
+    public ResourceVersion getCompilationsVersion() {
+        return compilationSnapshots.getListVersion()
+                .orElseGet(() -> ResourceVersion.of("compilations-" + compilationRepository.findListVersion()).weak());
     }
 
+    // События с категориями и инициаторами нужны для ответа, поэтому читаются вместе с подборкой
     private Compilation getCompilationByIdOrThrow(Long compId) {
-        return compilationRepository.findById(compId)
+        return compilationRepository.findWithEventsById(compId)
                 .orElseThrow(() -> new NotFoundException("Compilation with id=" + compId + " not found"));
     }
 
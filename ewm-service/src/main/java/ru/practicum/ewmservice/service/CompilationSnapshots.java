@@ -0,0 +1,264 @@
+package ru.practicum.ewmservice.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.OffsetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.ewmservice.dto.CompilationDto;
+import ru.practicum.ewmservice.dto.EventShortDto;
+import ru.practicum.ewmservice.mapper.CompilationMapper;
+import ru.practicum.ewmservice.model.Compilation;
+import ru.practicum.ewmservice.repository.CompilationRepository;
+import ru.practicum.ewmservice.repository.EventShortDtoRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Готовые CompilationDto всех подборок в памяти: публичные запросы подборок обслуживаются
+ * одним обращением к карте, без запросов к БД и stats-server.
+ * <p>
+ * Снимки пересобираются на отдельном потоке после коммита изменения: подборки с изменённым событием —
+ * асинхронно, изменённая подборка — с ожиданием пересборки, чтобы администратор сразу видел её
+ * в публичном API. Счётчики, просмотры, названия категорий и имена инициаторов обновляются
+ * полной пересборкой по расписанию. Пока первая пересборка не завершилась, сервис читает подборки из БД.
+ */
+@Slf4j
+@Component
+public class CompilationSnapshots {
+
+    private static final Sort BY_ID = Sort.by("id").ascending();
+
+    private final CompilationRepository compilationRepository;
+    private final EventShortDtoRepository eventShortDtoRepository;
+    private final CompilationMapper compilationMapper;
+    private final boolean enabled;
+    private final int batchSize;
+
+    private final ConcurrentSkipListMap<Long, Snapshot> snapshots = new ConcurrentSkipListMap<>();
+    // Событие -> подборки, в которые оно входит; меняется только на потоке пересборки
+    private final Map<Long, Set<Long>> compilationsByEvent = new ConcurrentHashMap<>();
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "compilation-snapshots"));
+    // Номер последнего изменения снимков; основа ETag снимков
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile long listVersion;
+    private volatile boolean ready;
+
+    public CompilationSnapshots(CompilationRepository compilationRepository,
+                                EventShortDtoRepository eventShortDtoRepository,
+                                CompilationMapper compilationMapper,
+                                @Value("${ewm.compilations.snapshots.enabled:true}") boolean enabled,
+                                @Value("${ewm.compilations.snapshots.rebuild-batch-size:100}") int batchSize) {
+        this.compilationRepository = compilationRepository;
+        this.eventShortDtoRepository = eventShortDtoRepository;
+        this.compilationMapper = compilationMapper;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Optional<CompilationDto> get(Long compId) {
+        return ready ? Optional.ofNullable(snapshots.get(compId)).map(Snapshot::compilation) : Optional.empty();
+    }
+
+    /**
+     * Страница подборок по возрастанию id; позиция — смещение или курсор по id.
+     */
+    public CursorPage<CompilationDto> getPage(Boolean pinned, Integer from, Integer size, String after) {
+        ScrollPosition position = PageCursor.position(after, from, size, BY_ID);
+        Map<Long, Snapshot> tail = snapshots;
+        long skip = 0;
+        if (position instanceof KeysetScrollPosition keyset && !keyset.isInitial()) {
+            tail = snapshots.tailMap((Long) keyset.getKeys().get("id"), false);
+        } else if (position instanceof OffsetScrollPosition offset && !offset.isInitial()) {
+            skip = offset.getOffset() + 1;
+        }
+
+        List<CompilationDto> page = tail.values().stream()
+                .map(Snapshot::compilation)
+                .filter(compilation -> pinned == null || pinned.equals(compilation.getPinned()))
+                .skip(skip)
+                .limit(size + 1)
+                .toList();
+        boolean hasNext = page.size() > size;
+        List<CompilationDto> content = hasNext ? page.subList(0, size) : page;
+        String nextCursor = hasNext ? PageCursor.encode(content.get(content.size() - 1), BY_ID) : null;
+        return new CursorPage<>(content, nextCursor);
+    }
+
+    public Optional<ResourceVersion> getVersion(Long compId) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(snapshots.get(compId))
+                .map(snapshot -> new ResourceVersion("compilation-" + compId + "-s" + snapshot.version(),
+                        snapshot.builtAt()));
+    }
+
+    public Optional<ResourceVersion> getListVersion() {
+        return ready ? Optional.of(ResourceVersion.of("compilations-s" + listVersion)) : Optional.empty();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCompilationChange(CompilationChange change) {
+        try {
+            scheduleRebuild(List.of(change.compilationId())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Failed to rebuild compilation snapshot {}: {}", change.compilationId(), e.getMessage(), e);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEventChange(EventChange change) {
+        Set<Long> compilations = compilationsByEvent.get(change.id());
+        if (compilations != null && !compilations.isEmpty()) {
+            scheduleRebuild(List.copyOf(compilations));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${ewm.compilations.snapshots.refresh-delay:PT1M}",
+            initialDelayString = "${ewm.compilations.snapshots.refresh-delay:PT1M}")
+    public void refresh() {
+        if (enabled) {
+            executor.execute(this::rebuildAll);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Future<?> scheduleRebuild(Collection<Long> compilationIds) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        pending.addAll(compilationIds);
+        // Подборки, изменённые несколько раз до запуска задачи, пересобираются один раз
+        return executor.submit(() -> {
+            List<Long> ids = new ArrayList<>(pending);
+            pending.removeAll(ids);
+            if (!ids.isEmpty()) {
+                rebuild(ids);
+            }
+        });
+    }
+
+    private void rebuild(List<Long> compilationIds) {
+        try {
+            List<Compilation> compilations = compilationRepository.findAllById(compilationIds);
+            store(compilations);
+            Set<Long> found = new HashSet<>();
+            compilations.forEach(compilation -> found.add(compilation.getId()));
+            compilationIds.stream()
+                    .filter(id -> !found.contains(id))
+                    .forEach(this::remove);
+            log.debug("Rebuilt compilation snapshots {}", compilationIds);
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild compilation snapshots {}: {}", compilationIds, e.getMessage(), e);
+        }
+    }
+
+    private void rebuildAll() {
+        try {
+            Set<Long> seen = new HashSet<>();
+            ScrollPosition position = ScrollPosition.keyset();
+            Window<Compilation> window;
+            do {
+                window = compilationRepository.findAllBy(position, BY_ID, Limit.of(batchSize));
+                store(window.getContent());
+                window.forEach(compilation -> seen.add(compilation.getId()));
+                if (!window.isEmpty()) {
+                    position = window.positionAt(window.size() - 1);
+                }
+            } while (window.hasNext());
+            snapshots.keySet().stream()
+                    .filter(id -> !seen.contains(id))
+                    .toList()
+                    .forEach(this::remove);
+            ready = true;
+            log.debug("Rebuilt {} compilation snapshots", seen.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild compilation snapshots: {}", e.getMessage(), e);
+        }
+    }
+
+    private void store(List<Compilation> compilations) {
+        if (compilations.isEmpty()) {
+            return;
+        }
+        Map<Long, List<EventShortDto>> events = eventShortDtoRepository.findByCompilationIds(
+                compilations.stream().map(Compilation::getId).toList());
+        for (CompilationDto compilation : compilationMapper.toCompilationDtos(compilations, events)) {
+            Snapshot previous = snapshots.get(compilation.getId());
+            // Неизменившийся снимок сохраняет версию, чтобы не сбрасывать ETag у клиентов
+            if (previous != null && previous.compilation().equals(compilation)) {
+                continue;
+            }
+            if (previous != null) {
+                unindex(previous.compilation());
+            }
+            long version = sequence.incrementAndGet();
+            snapshots.put(compilation.getId(), new Snapshot(compilation, version, System.currentTimeMillis()));
+            compilation.getEvents().forEach(event -> compilationsByEvent
+                    .computeIfAbsent(event.getId(), id -> ConcurrentHashMap.newKeySet())
+                    .add(compilation.getId()));
+            listVersion = version;
+        }
+    }
+
+    private void remove(Long compId) {
+        Snapshot removed = snapshots.remove(compId);
+        if (removed != null) {
+            unindex(removed.compilation());
+            listVersion = sequence.incrementAndGet();
+        }
+    }
+
+    private void unindex(CompilationDto compilation) {
+        compilation.getEvents().forEach(event -> compilationsByEvent.computeIfPresent(event.getId(),
+                (id, compilations) -> {
+                    compilations.remove(compilation.getId());
+                    return compilations.isEmpty() ? null : compilations;
+                }));
+    }
+
+    private record Snapshot(CompilationDto compilation, long version, long builtAt) {
+    }
+}
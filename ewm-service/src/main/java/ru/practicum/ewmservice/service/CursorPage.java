@@ -0,0 +1,21 @@
+package ru.practicum.ewmservice.service;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница списка и курсор следующей страницы; nextCursor равен null на последней странице.
+ */
+public record CursorPage<T>(List<T> content, String nextCursor) {
+
+    public static <E, T> CursorPage<T> of(Window<E> window, Sort sort, Function<List<E>, List<T>> mapper) {
+        List<E> elements = window.getContent();
+        String nextCursor = window.hasNext() && sort.isSorted() && !elements.isEmpty()
+                ? PageCursor.encode(elements.get(elements.size() - 1), sort)
+                : null;
+        return new CursorPage<>(mapper.apply(elements), nextCursor);
+    }
+}
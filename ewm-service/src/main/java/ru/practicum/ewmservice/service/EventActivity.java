@@ -0,0 +1,24 @@
+package ru.practicum.ewmservice.service;
+
+/**
+ * Приращения активности по событию: просмотры, оценки и подтверждённые заявки. Отрицательные значения
+ * означают отмену (снятие оценки, отмену заявки). Публикуется после изменения для рейтинга трендовых событий.
+ */
+public record EventActivity(Long eventId,
+                            long views,
+                            long likes,
+                            long dislikes,
+                            long confirmedRequests) {
+
+    public static EventActivity view(Long eventId) {
+        return new EventActivity(eventId, 1, 0, 0, 0);
+    }
+
+    public static EventActivity rating(Long eventId, long likes, long dislikes) {
+        return new EventActivity(eventId, 0, likes, dislikes, 0);
+    }
+
+    public static EventActivity requests(Long eventId, long confirmedRequests) {
+        return new EventActivity(eventId, 0, 0, 0, confirmedRequests);
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.ewmservice.service;
+
+import ru.practicum.ewmservice.model.Event;
+import ru.practicum.ewmservice.model.EventState;
+import ru.practicum.ewmservice.model.Location;
+
+import java.time.LocalDateTime;
+
+/**
+ * Снимок полей события, публикуемый после изменения события для обновления in-memory индексов и кешей.
+ * Категория и платность до изменения нужны кешам, которые сбрасывают выдачу и по прежнему фильтру.
+ */
+public record EventChange(Long id,
+                          EventState state,
+                          Long categoryId,
+                          boolean paid,
+                          LocalDateTime eventDate,
+                          Location location,
+                          boolean highDemand,
+                          Long previousCategoryId,
+                          boolean previousPaid) {
+
+    public static EventChange of(Event event, Long previousCategoryId, boolean previousPaid) {
+        return new EventChange(event.getId(),
+                event.getState(),
+                event.getCategory().getId(),
+                Boolean.TRUE.equals(event.getPaid()),
+                event.getEventDate(),
+                event.getLocation(),
+                Boolean.TRUE.equals(event.getHighDemand()),
+                previousCategoryId,
+                previousPaid);
+    }
+}
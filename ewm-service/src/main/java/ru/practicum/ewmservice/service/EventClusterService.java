@@ -0,0 +1,9 @@
+package ru.practicum.ewmservice.service;
+
+import ru.practicum.ewmservice.dto.EventClusterDto;
+
+import java.util.List;
+
+public interface EventClusterService {
+    List<EventClusterDto> getClusters(List<Double> bbox, Integer zoom);
+}
@@ -0,0 +1,188 @@
+package ru.practicum.ewmservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.ewmservice.dto.EventClusterDto;
+import ru.practicum.ewmservice.exception.ValidationException;
+import ru.practicum.ewmservice.model.EventState;
+import ru.practicum.ewmservice.model.Location;
+import ru.practicum.ewmservice.repository.EventRepository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кластеры опубликованных событий для карты. Мир делится на 2^zoom x 2^zoom плиток в координатах
+ * широта/долгота, каждая плитка — на 8 x 8 ячеек; кластер — агрегат событий ячейки.
+ * <p>
+ * Кластеры кешируются по плиткам. Публикация события сбрасывает плитки с его местом проведения
+ * на всех уровнях zoom; перенести или снять с публикации опубликованное событие нельзя.
+ */
+@Slf4j
+@Service
+public class EventClusterServiceImpl implements EventClusterService {
+
+    private static final int MAX_ZOOM = 16;
+    private static final int CELLS_PER_TILE = 8;
+    private static final int MAX_TILES = 256;
+
+    private final EventRepository eventRepository;
+    private final Map<Tile, List<EventClusterDto>> tiles;
+    // Плитка, прочитанная до сброса кеша, но сохраняемая после него, в кеш не попадает
+    private final AtomicLong generation = new AtomicLong();
+
+    public EventClusterServiceImpl(EventRepository eventRepository,
+                                   @Value("${ewm.clusters.cache-size:10000}") int cacheSize) {
+        this.eventRepository = eventRepository;
+        this.tiles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Tile, List<EventClusterDto>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<EventClusterDto> getClusters(List<Double> bbox, Integer zoom) {
+        validate(bbox, zoom);
+        double minLon = bbox.get(0);
+        double minLat = bbox.get(1);
+        double maxLon = bbox.get(2);
+        double maxLat = bbox.get(3);
+
+        int firstY = tileIndex(minLat + 90, 180, zoom);
+        int lastY = tileIndex(maxLat + 90, 180, zoom);
+        List<int[]> columns = new ArrayList<>();
+        if (minLon <= maxLon) {
+            columns.add(new int[]{tileIndex(minLon + 180, 360, zoom), tileIndex(maxLon + 180, 360, zoom)});
+        } else {
+            // Прямоугольник через антимеридиан
+            columns.add(new int[]{tileIndex(minLon + 180, 360, zoom), (1 << zoom) - 1});
+            columns.add(new int[]{0, tileIndex(maxLon + 180, 360, zoom)});
+        }
+        int tileCount = columns.stream().mapToInt(range -> range[1] - range[0] + 1).sum() * (lastY - firstY + 1);
+        if (tileCount > MAX_TILES) {
+            throw new ValidationException("Bounding box covers too many tiles for zoom " + zoom);
+        }
+
+        List<EventClusterDto> clusters = new ArrayList<>();
+        for (int[] range : columns) {
+            Map<Tile, List<EventClusterDto>> found = getTiles(zoom, range[0], range[1], firstY, lastY);
+            found.values().forEach(tileClusters -> tileClusters.stream()
+                    .filter(cluster -> cluster.getLat() >= minLat && cluster.getLat() <= maxLat)
+                    .filter(cluster -> minLon <= maxLon
+                            ? cluster.getLon() >= minLon && cluster.getLon() <= maxLon
+                            : cluster.getLon() >= minLon || cluster.getLon() <= maxLon)
+                    .forEach(clusters::add));
+        }
+        return clusters;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEventChange(EventChange change) {
+        Location location = change.location();
+        if (change.state() != EventState.PUBLISHED || location == null
+                || location.getLat() == null || location.getLon() == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        synchronized (tiles) {
+            for (int zoom = 0; zoom <= MAX_ZOOM; zoom++) {
+                tiles.remove(new Tile(zoom, tileIndex(location.getLon() + 180, 360, zoom),
+                        tileIndex(location.getLat() + 90, 180, zoom)));
+            }
+        }
+    }
+
+    private Map<Tile, List<EventClusterDto>> getTiles(int zoom, int firstX, int lastX, int firstY, int lastY) {
+        Map<Tile, List<EventClusterDto>> result = new LinkedHashMap<>();
+        boolean complete = true;
+        synchronized (tiles) {
+            for (int y = firstY; y <= lastY; y++) {
+                for (int x = firstX; x <= lastX; x++) {
+                    Tile tile = new Tile(zoom, x, y);
+                    List<EventClusterDto> cached = tiles.get(tile);
+                    complete &= cached != null;
+                    result.put(tile, cached);
+                }
+            }
+        }
+        if (complete) {
+            return result;
+        }
+
+        // Недостающие плитки читаются одним запросом по всему прямоугольнику
+        long loadedGeneration = generation.get();
+        Map<Tile, List<EventClusterDto>> loaded = loadTiles(zoom, firstX, lastX, firstY, lastY);
+        synchronized (tiles) {
+            if (generation.get() == loadedGeneration) {
+                tiles.putAll(loaded);
+            }
+        }
+        return loaded;
+    }
+
+    private Map<Tile, List<EventClusterDto>> loadTiles(int zoom, int firstX, int lastX, int firstY, int lastY) {
+        double tileWidth = 360.0 / (1 << zoom);
+        double tileHeight = 180.0 / (1 << zoom);
+        Map<Tile, List<EventClusterDto>> loaded = new LinkedHashMap<>();
+        for (int y = firstY; y <= lastY; y++) {
+            for (int x = firstX; x <= lastX; x++) {
+                loaded.put(new Tile(zoom, x, y), new ArrayList<>());
+            }
+        }
+
+        List<Object[]> cells = eventRepository.findClusterCells(
+                -90 + firstY * tileHeight, -90 + (lastY + 1) * tileHeight,
+                -180 + firstX * tileWidth, -180 + (lastX + 1) * tileWidth,
+                tileHeight / CELLS_PER_TILE, tileWidth / CELLS_PER_TILE);
+        for (Object[] row : cells) {
+            // Точки на границе прямоугольника, полюсе и антимеридиане относятся к крайней плитке
+            int x = Math.clamp(((Number) row[1]).intValue() / CELLS_PER_TILE, firstX, lastX);
+            int y = Math.clamp(((Number) row[0]).intValue() / CELLS_PER_TILE, firstY, lastY);
+            loaded.get(new Tile(zoom, x, y)).add(new EventClusterDto(
+                    ((Number) row[3]).doubleValue(),
+                    ((Number) row[4]).doubleValue(),
+                    ((Number) row[2]).longValue(),
+                    ((Number) row[5]).longValue()));
+        }
+        log.debug("Loaded {} cluster cells for {} tiles at zoom {}", cells.size(), loaded.size(), zoom);
+        return loaded;
+    }
+
+    private void validate(List<Double> bbox, Integer zoom) {
+        if (zoom == null || zoom < 0 || zoom > MAX_ZOOM) {
+            throw new ValidationException("Zoom must be between 0 and " + MAX_ZOOM);
+        }
+        if (bbox == null || bbox.size() != 4 || bbox.stream().anyMatch(Objects::isNull)) {
+            throw new ValidationException("Bounding box must be minLon,minLat,maxLon,maxLat");
+        }
+        for (int i = 0; i < 4; i += 2) {
+            if (bbox.get(i) < -180 || bbox.get(i) > 180 || bbox.get(i + 1) < -90 || bbox.get(i + 1) > 90) {
+                throw new ValidationException("Coordinates are out of range: lat=" + bbox.get(i + 1)
+                        + ", lon=" + bbox.get(i));
+            }
+        }
+        if (bbox.get(1) > bbox.get(3)) {
+            throw new ValidationException("Bounding box minLat must not be greater than maxLat");
+        }
+    }
+
+    // Номер плитки по смещению от -90/-180 градусов при размере мира extent градусов
+    private static int tileIndex(double offset, double extent, int zoom) {
+        int tilesPerAxis = 1 << zoom;
+        return Math.min((int) Math.floor(offset / extent * tilesPerAxis), tilesPerAxis - 1);
+    }
+
+    private record Tile(int zoom, int x, int y) {
+    }
+}
@@ -0,0 +1,149 @@
+package ru.practicum.ewmservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewmservice.repository.EventRatingRepository;
+import ru.practicum.ewmservice.repository.EventRepository;
+import ru.practicum.ewmservice.repository.ParticipationRequestRepository;
+import ru.practicum.ewmservice.repository.UserRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Сверяет денормализованные счётчики событий с participation_requests и event_ratings
+ * и исправляет расхождения. Первый запуск при старте заодно заполняет счётчики после миграции.
+ * <p>
+ * Лайки и дизлайки сверяются только у событий без несохранённых и незавершённых оценок в {@link RatingCounterStore}
+ * до и после подсчёта event_ratings: иначе оценка, ещё не дошедшая до хранилища, или сохранённая, но ещё не
+ * вычтенная из него, дала бы ложное расхождение. Такие события сверяются в следующий проход, а изменения строки
+ * после её чтения отсекает условие в {@link EventRepository#repairCounters}. После событий из их счётчиков
+ * постранично сверяется user_reputation: строка исправляется, только если её не изменили после чтения.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventCountersReconciler {
+
+    private final EventRepository eventRepository;
+    private final ParticipationRequestRepository requestRepository;
+    private final EventRatingRepository ratingRepository;
+    private final RatingCounterStore ratingCounterStore;
+    private final UserRepository userRepository;
+
+    @Value("${ewm.counters.reconcile-batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${ewm.counters.reconcile-delay:PT10M}")
+    public void reconcile() {
+        long afterId = 0L;
+        int repaired = 0;
+        List<Object[]> batch;
+
+        do {
+            batch = eventRepository.findCountersAfter(afterId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            repaired += reconcileBatch(batch);
+            afterId = (Long) batch.get(batch.size() - 1)[0];
+        } while (batch.size() == batchSize);
+
+        if (repaired > 0) {
+            log.warn("Repaired drifted counters for {} events", repaired);
+        } else {
+            log.debug("Event counters are consistent");
+        }
+
+        int reputations = reconcileReputations();
+        if (reputations > 0) {
+            log.warn("Repaired reputation for {} users", reputations);
+        }
+    }
+
+    private int reconcileReputations() {
+        long afterId = 0L;
+        int repaired = 0;
+        List<Object[]> batch;
+
+        do {
+            batch = userRepository.findReputationsAfter(afterId, PageRequest.of(0, batchSize));
+            for (Object[] row : batch) {
+                Long userId = ((Number) row[0]).longValue();
+                long actual = ((Number) row[1]).longValue();
+                Number stored = (Number) row[2];
+                if (stored == null) {
+                    // Строку без событий заводить незачем; занятую параллельно строку исправит следующий проход
+                    if (((Number) row[3]).longValue() > 0) {
+                        repaired += userRepository.insertReputation(userId, actual);
+                    }
+                } else if (stored.longValue() != actual) {
+                    // Если сохранение счётчиков успело изменить строку, пропускаем её до следующего прохода
+                    repaired += userRepository.repairReputation(userId, actual, stored.longValue());
+                    log.debug("User {} reputation drifted: {}->{}", userId, stored, actual);
+                }
+            }
+            if (!batch.isEmpty()) {
+                afterId = ((Number) batch.get(batch.size() - 1)[0]).longValue();
+            }
+        } while (batch.size() == batchSize);
+        return repaired;
+    }
+
+    private int reconcileBatch(List<Object[]> batch) {
+        List<Long> eventIds = batch.stream()
+                .map(row -> (Long) row[0])
+                .collect(Collectors.toList());
+
+        Set<Long> settled = eventIds.stream()
+                .filter(ratingCounterStore::isSettled)
+                .collect(Collectors.toSet());
+
+        Map<Long, Long> confirmed = new HashMap<>();
+        for (Object[] row : requestRepository.countConfirmedByEventIds(eventIds)) {
+            confirmed.put((Long) row[0], (Long) row[1]);
+        }
+
+        Map<Long, Object[]> ratings = new HashMap<>();
+        for (Object[] row : ratingRepository.countLikesAndDislikesByEventIds(eventIds)) {
+            ratings.put((Long) row[0], row);
+        }
+        settled.removeIf(eventId -> !ratingCounterStore.isSettled(eventId));
+
+        int repaired = 0;
+        for (Object[] row : batch) {
+            Long eventId = (Long) row[0];
+            long storedConfirmed = (Long) row[1];
+            long storedLikes = (Long) row[2];
+            long storedDislikes = (Long) row[3];
+
+            long actualConfirmed = confirmed.getOrDefault(eventId, 0L);
+            long actualLikes = storedLikes;
+            long actualDislikes = storedDislikes;
+            // У события с оценками в пути сверяются только подтверждённые заявки
+            if (settled.contains(eventId)) {
+                Object[] rating = ratings.get(eventId);
+                actualLikes = rating != null ? (Long) rating[1] : 0L;
+                actualDislikes = rating != null ? (Long) rating[2] : 0L;
+            }
+
+            if (storedConfirmed == actualConfirmed && storedLikes == actualLikes && storedDislikes == actualDislikes) {
+                continue;
+            }
+
+            // Если строку успели изменить параллельно, пропускаем её до следующего прохода
+            repaired += eventRepository.repairCounters(eventId, actualConfirmed, actualLikes, actualDislikes,
+                    storedConfirmed, storedLikes, storedDislikes);
+            log.debug("Event {} counters drifted: confirmed {}->{}, likes {}->{}, dislikes {}->{}", eventId,
+                    storedConfirmed, actualConfirmed, storedLikes, actualLikes, storedDislikes, actualDislikes);
+        }
+        return repaired;
+    }
+}
@@ -0,0 +1,157 @@
+package ru.practicum.ewmservice.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewmservice.dto.EventFullDto;
+import ru.practicum.ewmservice.dto.EventShortDto;
+import ru.practicum.ewmservice.mapper.EventMapper;
+import ru.practicum.ewmservice.model.Event;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Собирает просмотры и счётчики для страницы событий. Запрос к stats-server выполняется
+ * на виртуальном потоке с дедлайном, отсчитываемым от его запуска, поэтому его можно начинать
+ * заранее, параллельно с запросами к БД. К материализованным лайкам и дизлайкам добавляются
+ * ещё не сохранённые оценки из {@link RatingCounterStore}.
+ */
+@Slf4j
+@Component
+public class EventEnricher {
+
+    private final StatsIntegrationService statsIntegrationService;
+    private final RatingCounterStore ratingCounterStore;
+    private final Duration timeout;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public EventEnricher(StatsIntegrationService statsIntegrationService,
+                         RatingCounterStore ratingCounterStore,
+                         @Value("${ewm.enrichment.timeout:PT2S}") Duration timeout) {
+        this.statsIntegrationService = statsIntegrationService;
+        this.ratingCounterStore = ratingCounterStore;
+        this.timeout = timeout;
+    }
+
+    public CompletableFuture<Map<Long, Long>> fetchViews(List<Long> eventIds) {
+        CompletableFuture<Map<Long, Long>> views = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                views.complete(statsIntegrationService.getEventsViews(eventIds));
+            } catch (RuntimeException e) {
+                views.completeExceptionally(e);
+            }
+        });
+        // По дедлайну запрос к stats-server прерывается, а не продолжает занимать поток и соединение
+        views.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> task.cancel(true));
+        return views;
+    }
+
+    public EventStats enrich(List<Event> events) {
+        return enrich(events, fetchViews(events.stream()
+                .map(Event::getId)
+                .distinct()
+                .collect(Collectors.toList())));
+    }
+
+    public EventStats enrich(List<Event> events, CompletableFuture<Map<Long, Long>> views) {
+        EventStats stats = EventStats.of(events);
+        events.stream()
+                .map(Event::getId)
+                .distinct()
+                .forEach(id -> stats.addRating(id, ratingCounterStore.pendingLikes(id),
+                        ratingCounterStore.pendingDislikes(id)));
+        awaitViews(views).forEach(stats::setViews);
+        return stats;
+    }
+
+    public List<EventShortDto> toShortDtos(List<Event> events) {
+        EventStats stats = enrich(events);
+        return events.stream()
+                .map(event -> EventMapper.toEventShortDto(event, stats))
+                .collect(Collectors.toList());
+    }
+
+    public List<EventFullDto> toFullDtos(List<Event> events) {
+        EventStats stats = enrich(events);
+        return events.stream()
+                .map(event -> EventMapper.toEventFullDto(event, stats))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Подставляет в DTO из read-only выборок просмотры из stats-server и ещё не сохранённые оценки;
+     * при недоступности stats-server остаются материализованные просмотры.
+     */
+    public List<EventShortDto> applyLiveStats(List<EventShortDto> events) {
+        return applyLiveStats(events, true, true);
+    }
+
+    /**
+     * То же, но живые просмотры или оценки можно не подставлять: страница, отсортированная по материализованному
+     * счётчику, показывает те значения, по которым она упорядочена и из которых построен курсор.
+     */
+    public List<EventShortDto> applyLiveStats(List<EventShortDto> events, boolean liveViews, boolean liveRatings) {
+        if (liveViews) {
+            Map<Long, Long> views = awaitViews(fetchViews(events.stream()
+                    .map(EventShortDto::getId)
+                    .distinct()
+                    .collect(Collectors.toList())));
+            events.forEach(event -> {
+                Long eventViews = views.get(event.getId());
+                if (eventViews != null) {
+                    event.setViews(eventViews);
+                }
+            });
+        }
+        if (liveRatings) {
+            // Одно событие может встречаться в нескольких подборках, но каждый DTO — отдельный объект
+            events.forEach(event -> {
+                long likes = ratingCounterStore.pendingLikes(event.getId());
+                long dislikes = ratingCounterStore.pendingDislikes(event.getId());
+                if (likes != 0 || dislikes != 0) {
+                    event.setLikes(event.getLikes() + likes);
+                    event.setDislikes(event.getDislikes() + dislikes);
+                    event.setRating(event.getLikes() - event.getDislikes());
+                }
+            });
+        }
+        return events;
+    }
+
+    public EventFullDto toFullDto(Event event, CompletableFuture<Map<Long, Long>> views) {
+        return EventMapper.toEventFullDto(event, enrich(List.of(event), views));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Map<Long, Long> awaitViews(CompletableFuture<Map<Long, Long>> views) {
+        try {
+            return views.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                log.warn("Views were not received within {}, returning zero views", timeout);
+            } else {
+                log.error("Failed to get views from stats service: {}", e.getMessage(), e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Map.of();
+    }
+}
@@ -0,0 +1,153 @@
+package ru.practicum.ewmservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.ewmservice.dto.EventShortDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кеш id страниц публичного поиска событий по нормализованной сигнатуре запроса.
+ * DTO страницы при попадании читаются из БД заново, поэтому названия, счётчики и просмотры остаются актуальными,
+ * а кеш отвечает только за состав и порядок страницы.
+ * <p>
+ * Изменение события сбрасывает страницы, где оно уже есть, и страницы, в фильтр категорий и платности которых
+ * оно попадает до или после изменения: снятое с публикации или перенесённое в другую категорию событие сдвигает
+ * и следующие страницы прежней выдачи, где его самого нет. Запросы, зависящие от часто меняющихся счётчиков
+ * (сортировка по просмотрам, рейтингу и «горячести», onlyAvailable), не кешируются; граница «после текущего момента»
+ * без заданного диапазона дат сдвигается со временем, её покрывает ttl.
+ */
+@Slf4j
+@Component
+public class EventSearchCache {
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Map<Key, Entry> entries;
+    // Страница, прочитанная до изменения события, но сохраняемая после него, в кеш не попадает
+    private final AtomicLong generation = new AtomicLong();
+
+    public EventSearchCache(@Value("${ewm.search.cache.enabled:true}") boolean enabled,
+                            @Value("${ewm.search.cache.size:10000}") int cacheSize,
+                            @Value("${ewm.search.cache.ttl:PT1M}") Duration ttl) {
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Сигнатура запроса или null, если запрос не кешируется.
+     */
+    public Key key(String text, List<Long> categories, Boolean paid,
+                   LocalDateTime rangeStart, LocalDateTime rangeEnd, Boolean onlyAvailable,
+                   Double lat, Double lon, Double radiusKm, List<Double> bbox,
+                   String sort, int from, int size, String after) {
+        if (!enabled || Boolean.TRUE.equals(onlyAvailable)
+                || "VIEWS".equals(sort) || "RATING".equals(sort) || "HOT".equals(sort)) {
+            return null;
+        }
+        String normalizedText = text == null || text.isBlank() ? null : text.strip();
+        String normalizedAfter = after == null || after.isBlank() ? null : after;
+        List<Long> normalizedCategories = categories == null || categories.isEmpty()
+                ? null
+                : categories.stream().distinct().sorted().toList();
+        // Для смещения важна только страница, а не точное значение from
+        return new Key(normalizedText, normalizedCategories, paid, rangeStart, rangeEnd,
+                lat, lon, radiusKm, bbox == null ? null : List.copyOf(bbox),
+                sort, normalizedAfter == null ? from / size * size : 0, size, normalizedAfter);
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * id событий страницы в порядке выдачи и курсор следующей страницы или null, если страницы нет в кеше.
+     */
+    public CursorPage<Long> get(Key key) {
+        if (key == null) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() - System.nanoTime() < 0) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.page();
+        }
+    }
+
+    public void put(Key key, long loadedGeneration, CursorPage<EventShortDto> page) {
+        if (key == null) {
+            return;
+        }
+        List<Long> ids = page.content().stream().map(EventShortDto::getId).toList();
+        Entry entry = new Entry(new CursorPage<>(ids, page.nextCursor()), new HashSet<>(ids),
+                System.nanoTime() + ttl.toNanos());
+        synchronized (entries) {
+            if (generation.get() == loadedGeneration) {
+                entries.put(key, entry);
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEventChange(EventChange change) {
+        if (!enabled) {
+            return;
+        }
+        generation.incrementAndGet();
+        int removed;
+        synchronized (entries) {
+            int before = entries.size();
+            entries.entrySet().removeIf(entry -> entry.getValue().eventIds().contains(change.id())
+                    || entry.getKey().matches(change.categoryId(), change.paid())
+                    || entry.getKey().matches(change.previousCategoryId(), change.previousPaid()));
+            removed = before - entries.size();
+        }
+        log.debug("Event {} changed, {} cached search pages invalidated", change.id(), removed);
+    }
+
+    public record Key(String text,
+                      List<Long> categories,
+                      Boolean paid,
+                      LocalDateTime rangeStart,
+                      LocalDateTime rangeEnd,
+                      Double lat,
+                      Double lon,
+                      Double radiusKm,
+                      List<Double> bbox,
+                      String sort,
+                      int offset,
+                      int size,
+                      String after) {
+
+        // Грубая проверка: может ли событие попасть в выдачу по категории и платности
+        private boolean matches(Long categoryId, boolean eventPaid) {
+            return (categories == null || categories.contains(categoryId))
+                    && (paid == null || paid == eventPaid);
+        }
+    }
+
+    private record Entry(CursorPage<Long> page, Set<Long> eventIds, long expiresAt) {
+    }
+}
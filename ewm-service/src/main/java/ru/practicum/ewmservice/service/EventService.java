@@ -7,17 +7,30 @@ import ru.practicum.ewmservice.model.EventState;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface EventService {
-    List<EventShortDto> getEvents(String text, List<Long> categories, Boolean paid,
-                                  LocalDateTime rangeStart, LocalDateTime rangeEnd,
-                                  Boolean onlyAvailable, String sort, Integer from, Integer size);
+    CursorPage<EventShortDto> getEvents(String text, List<Long> categories, Boolean paid,
+                                        LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                        Boolean onlyAvailable, Double lat, Double lon, Double radiusKm,
+                                        List<Double> bbox, String sort, Integer from, Integer size,
+                                        String after);
+
+    /**
+     * Трендовые события по убыванию затухающего счёта активности.
+     */
+    List<EventShortDto> getTrendingEvents(List<Long> categories, Integer size);
 
     EventFullDto getEventById(Long eventId);
 
-    List<EventFullDto> getEventsByAdmin(List<Long> users, List<EventState> states, List<Long> categories,
-                                        LocalDateTime rangeStart, LocalDateTime rangeEnd,
-                                        Integer from, Integer size);
+    /**
+     * Версия опубликованного события для условного GET; пусто, если событие не найдено или не опубликовано.
+     */
+    Optional<ResourceVersion> getEventVersion(Long eventId);
+
+    CursorPage<EventFullDto> getEventsByAdmin(List<Long> users, List<EventState> states, List<Long> categories,
+                                              LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                              Integer from, Integer size, String after);
 
     EventFullDto updateEventByAdmin(Long eventId, UpdateEventAdminRequest updateEventAdminRequest);
 }
\ No newline at end of file
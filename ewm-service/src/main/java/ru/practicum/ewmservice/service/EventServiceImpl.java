@@ -2,32 +2,32 @@ package ru.practicum.ewmservice.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.dto.ViewStats;
 import ru.practicum.ewmservice.dto.EventFullDto;
 import ru.practicum.ewmservice.dto.EventShortDto;
 import ru.practicum.ewmservice.dto.UpdateEventAdminRequest;
 import ru.practicum.ewmservice.exception.ConflictException;
 import ru.practicum.ewmservice.exception.NotFoundException;
 import ru.practicum.ewmservice.exception.ValidationException;
-import ru.practicum.ewmservice.mapper.EventMapper;
 import ru.practicum.ewmservice.model.Event;
 import ru.practicum.ewmservice.model.EventState;
-import ru.practicum.ewmservice.repository.EventRatingRepository;
 import ru.practicum.ewmservice.repository.EventRepository;
+import ru.practicum.ewmservice.repository.EventShortDtoRepository;
 import ru.practicum.ewmservice.repository.EventSpecifications;
-import ru.practicum.ewmservice.repository.ParticipationRequestRepository;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -37,65 +37,104 @@ import java.util.stream.Collectors;
 public class EventServiceImpl implements EventService {
 
     private final EventRepository eventRepository;
-    private final StatsIntegrationService statsIntegrationService;
-    private final ParticipationRequestRepository requestRepository;
-    private final EventRatingRepository ratingRepository;
+    private final EventShortDtoRepository eventShortDtoRepository;
+    private final EventEnricher eventEnricher;
+    private final PublishedEventIndex publishedEventIndex;
+    private final EventSearchCache eventSearchCache;
+    private final TrendingEventsLeaderboard trendingEventsLeaderboard;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
-    public List<EventShortDto> getEvents(String text, List<Long> categories, Boolean paid,
-                                         LocalDateTime rangeStart, LocalDateTime rangeEnd,
-                                         Boolean onlyAvailable, String sort, Integer from, Integer size) {
-        log.info("Getting events with parameters: text={}, categories={}, paid={}, rangeStart={}, rangeEnd={}, onlyAvailable={}, sort={}, from={}, size={}",
-                text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, from, size);
+    public CursorPage<EventShortDto> getEvents(String text, List<Long> categories, Boolean paid,
+                                               LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                               Boolean onlyAvailable, Double lat, Double lon, Double radiusKm,
+                                               List<Double> bbox, String sort, Integer from, Integer size,
+                                               String after) {
+        log.info("Getting events with parameters: text={}, categories={}, paid={}, rangeStart={}, rangeEnd={}, onlyAvailable={}, lat={}, lon={}, radiusKm={}, bbox={}, sort={}, from={}, size={}, after={}",
+                text, categories, paid, rangeStart, rangeEnd, onlyAvailable, lat, lon, radiusKm, bbox, sort, from, size, after);
 
         validatePaginationParams(from, size);
 
         if (rangeStart != null && rangeEnd != null && rangeStart.isAfter(rangeEnd)) {
             throw new ValidationException("Start date must be before end date");
         }
+        validateGeoParams(lat, lon, radiusKm, bbox, sort);
+
+        boolean hasText = text != null && !text.isBlank();
+        Sort sorting = createSort(sort, hasText);
+        if (after != null && sorting.isUnsorted()) {
+            throw new ValidationException("Cursor pagination is not supported for sort=" + sort);
+        }
 
+        // При попадании в кеш из БД читаются только строки страницы по id
+        EventSearchCache.Key key = eventSearchCache.key(text, categories, paid, rangeStart, rangeEnd, onlyAvailable,
+                lat, lon, radiusKm, bbox, sort, from, size, after);
+        CursorPage<Long> cached = eventSearchCache.get(key);
+        if (cached != null) {
+            return new CursorPage<>(liveStats(sort).apply(findShortDtosInOrder(cached.content())),
+                    cached.nextCursor());
+        }
+        long generation = eventSearchCache.generation();
+        CursorPage<EventShortDto> page = findEvents(text, categories, paid, rangeStart, rangeEnd, onlyAvailable,
+                lat, lon, radiusKm, bbox, sort, sorting, from, size, after);
+        eventSearchCache.put(key, generation, page);
+        return page;
+    }
+
+    private CursorPage<EventShortDto> findEvents(String text, List<Long> categories, Boolean paid,
+                                                 LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                                 Boolean onlyAvailable, Double lat, Double lon, Double radiusKm,
+                                                 List<Double> bbox, String sort, Sort sorting,
+                                                 Integer from, Integer size, String after) {
+        boolean hasText = text != null && !text.isBlank();
         Specification<Event> specification = Specification.where(EventSpecifications.isPublished())
-                .and(EventSpecifications.hasTextInAnnotationOrDescription(text))
+                .and(EventSpecifications.matchesText(text, "RELEVANCE".equals(sort)))
                 .and(EventSpecifications.hasCategories(categories))
                 .and(EventSpecifications.isPaid(paid))
-                .and(EventSpecifications.isInDateRange(rangeStart, rangeEnd));
-
-        Pageable pageable = createPageable(from, size, sort);
-
-        List<Event> events = eventRepository.findAll(specification, pageable).getContent();
+                .and(EventSpecifications.isInDateRange(rangeStart, rangeEnd))
+                .and(EventSpecifications.isAvailable(onlyAvailable))
+                .and(EventSpecifications.isWithinRadius(lat, lon, radiusKm))
+                .and(EventSpecifications.isInBoundingBox(bbox));
+        if ("DISTANCE".equals(sort)) {
+            specification = specification.and(EventSpecifications.orderByDistance(lat, lon));
+        }
 
-        if (onlyAvailable != null && onlyAvailable) {
-            events = events.stream()
-                    .filter(event -> isEventAvailable(event))
-                    .collect(Collectors.toList());
+        // В индексе нет счётчиков заявок и координат, поэтому такие фильтры обрабатывает БД
+        boolean onlyAvailableRequested = onlyAvailable != null && onlyAvailable;
+        boolean hasArea = radiusKm != null || bbox != null;
+        if (hasText && after == null && !onlyAvailableRequested && !hasArea && isIndexSort(sort)
+                && publishedEventIndex.canSearch(text)) {
+            // id страницы берутся из in-memory индекса, из БД читаются только строки этой страницы
+            List<Long> eventIds = publishedEventIndex.search(text, categories, paid, rangeStart, rangeEnd,
+                    "EVENT_DATE".equals(sort), from / size * size, size + 1);
+            boolean hasNext = eventIds.size() > size;
+            List<EventShortDto> events = findShortDtosInOrder(hasNext ? eventIds.subList(0, size) : eventIds);
+            String nextCursor = hasNext && !events.isEmpty()
+                    ? PageCursor.encode(events.get(events.size() - 1), sorting)
+                    : null;
+            return new CursorPage<>(liveStats(sort).apply(events), nextCursor);
         }
 
-        Map<Long, Long> viewsMap = getEventsViews(events);
-        Map<Long, Long> confirmedRequestsMap = getConfirmedRequestsMap(events);
-        Map<Long, Long> likesMap = getEventsLikes(events);
-        Map<Long, Long> dislikesMap = getEventsDislikes(events);
-
-        List<EventShortDto> result = events.stream()
-                .map(event -> {
-                    Long eventViews = viewsMap.getOrDefault(event.getId(), 0L);
-                    Long confirmedRequests = confirmedRequestsMap.getOrDefault(event.getId(), 0L);
-                    Long likes = likesMap.getOrDefault(event.getId(), 0L);
-                    Long dislikes = dislikesMap.getOrDefault(event.getId(), 0L);
-                    EventShortDto dto = EventMapper.toEventShortDto(event, eventViews, confirmedRequests);
-                    dto.setLikes(likes);
-                    dto.setDislikes(dislikes);
-                    dto.setRating(likes - dislikes);
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        Window<EventShortDto> window = eventShortDtoRepository.findAll(specification, sorting,
+                PageCursor.position(after, from, size, sorting), size);
+        return CursorPage.of(window, sorting, liveStats(sort));
+    }
 
-        if ("RATING".equals(sort)) {
-            result.sort(Comparator.comparing(EventShortDto::getRating).reversed());
-        } else if ("VIEWS".equals(sort)) {
-            result.sort(Comparator.comparing(EventShortDto::getViews).reversed());
-        }
+    // Просмотры синхронизируются в events периодически, а оценки сохраняются пачками: при сортировке по ним
+    // страница показывает материализованные значения, иначе числа на странице шли бы не по порядку
+    private UnaryOperator<List<EventShortDto>> liveStats(String sort) {
+        boolean liveViews = !"VIEWS".equals(sort);
+        boolean liveRatings = !"RATING".equals(sort);
+        return events -> eventEnricher.applyLiveStats(events, liveViews, liveRatings);
+    }
 
-        return result;
+    @Override
+    public List<EventShortDto> getTrendingEvents(List<Long> categories, Integer size) {
+        if (size == null || size <= 0 || size > trendingEventsLeaderboard.getTopK()) {
+            throw new ValidationException("Size must be between 1 and " + trendingEventsLeaderboard.getTopK());
+        }
+        List<Long> eventIds = trendingEventsLeaderboard.getTop(categories, size);
+        return eventEnricher.applyLiveStats(findShortDtosInOrder(eventIds));
     }
 
     @Override
@@ -106,25 +145,21 @@ public class EventServiceImpl implements EventService {
             throw new NotFoundException("Event with id=" + eventId + " is not published");
         }
 
-        Long views = getEventViews(eventId);
-        Long confirmedRequests = requestRepository.getConfirmedRequestsCount(eventId);
-        Long likes = ratingRepository.countLikesByEventId(eventId);
-        Long dislikes = ratingRepository.countDislikesByEventId(eventId);
-
-        EventFullDto dto = EventMapper.toEventFullDto(event, views, confirmedRequests);
-        dto.setLikes(likes);
-        dto.setDislikes(dislikes);
-        dto.setRating(likes - dislikes);
+        return eventEnricher.toFullDto(event, eventEnricher.fetchViews(List.of(eventId)));
+    }
 
-        return dto;
+    @Override
+    public Optional<ResourceVersion> getEventVersion(Long eventId) {
+        return ResourceVersion.fromRows("event-" + eventId + "-", eventRepository.findPublishedVersion(eventId))
+                .map(ResourceVersion::weak);
     }
 
     @Override
-    public List<EventFullDto> getEventsByAdmin(List<Long> users, List<EventState> states, List<Long> categories,
-                                               LocalDateTime rangeStart, LocalDateTime rangeEnd,
-                                               Integer from, Integer size) {
-        log.info("Getting events by admin: users={}, states={}, categories={}, rangeStart={}, rangeEnd={}, from={}, size={}",
-                users, states, categories, rangeStart, rangeEnd, from, size);
+    public CursorPage<EventFullDto> getEventsByAdmin(List<Long> users, List<EventState> states, List<Long> categories,
+                                                     LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                                     Integer from, Integer size, String after) {
+        log.info("Getting events by admin: users={}, states={}, categories={}, rangeStart={}, rangeEnd={}, from={}, size={}, after={}",
+                users, states, categories, rangeStart, rangeEnd, from, size, after);
 
         validatePaginationParams(from, size);
 
@@ -135,36 +170,24 @@ public class EventServiceImpl implements EventService {
         Specification<Event> specification = Specification.where(EventSpecifications.hasUsers(users))
                 .and(EventSpecifications.hasStates(states))
                 .and(EventSpecifications.hasCategories(categories))
-                .and(EventSpecifications.isInDateRange(rangeStart, rangeEnd));
-
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("id").ascending());
-
-        List<Event> events = eventRepository.findAll(specification, pageable).getContent();
-
-        Map<Long, Long> viewsMap = getEventsViews(events);
-        Map<Long, Long> confirmedRequestsMap = getConfirmedRequestsMap(events);
-        Map<Long, Long> likesMap = getEventsLikes(events);
-        Map<Long, Long> dislikesMap = getEventsDislikes(events);
-
-        return events.stream()
-                .map(event -> {
-                    Long eventViews = viewsMap.getOrDefault(event.getId(), 0L);
-                    Long confirmedRequests = confirmedRequestsMap.getOrDefault(event.getId(), 0L);
-                    Long likes = likesMap.getOrDefault(event.getId(), 0L);
-                    Long dislikes = dislikesMap.getOrDefault(event.getId(), 0L);
-                    EventFullDto dto = EventMapper.toEventFullDto(event, eventViews, confirmedRequests);
-                    dto.setLikes(likes);
-                    dto.setDislikes(dislikes);
-                    dto.setRating(likes - dislikes);
-                    return dto;
-                })
-                .collect(Collectors.toList());
+                .and(EventSpecifications.isInDateRange(rangeStart, rangeEnd))
+                .and(EventSpecifications.fetchCategoryAndInitiator());
+
+        Sort sorting = Sort.by("id").ascending();
+        Window<Event> window = eventRepository.findBy(specification, query -> query
+                .sortBy(sorting)
+                .limit(size)
+                .scroll(PageCursor.position(after, from, size, sorting)));
+
+        return CursorPage.of(window, sorting, eventEnricher::toFullDtos);
     }
 
     @Override
     @Transactional
     public EventFullDto updateEventByAdmin(Long eventId, UpdateEventAdminRequest updateEventAdminRequest) {
         Event event = getEventByIdOrThrow(eventId);
+        Long previousCategoryId = event.getCategory().getId();
+        boolean previousPaid = Boolean.TRUE.equals(event.getPaid());
 
         if (updateEventAdminRequest.getStateAction() != null) {
             if ("PUBLISH_EVENT".equals(updateEventAdminRequest.getStateAction())) {
@@ -188,50 +211,51 @@ public class EventServiceImpl implements EventService {
 
         updateEventFields(event, updateEventAdminRequest);
 
+        // Просмотры запрашиваются только после всех проверок: отклонённое изменение не обращается к stats-server
+        CompletableFuture<Map<Long, Long>> views = eventEnricher.fetchViews(List.of(eventId));
         Event updatedEvent = eventRepository.save(event);
+        eventPublisher.publishEvent(EventChange.of(updatedEvent, previousCategoryId, previousPaid));
 
-        Long views = getEventViews(eventId);
-        Long confirmedRequests = requestRepository.getConfirmedRequestsCount(eventId);
-        Long likes = ratingRepository.countLikesByEventId(eventId);
-        Long dislikes = ratingRepository.countDislikesByEventId(eventId);
-
-        EventFullDto dto = EventMapper.toEventFullDto(updatedEvent, views, confirmedRequests);
-        dto.setLikes(likes);
-        dto.setDislikes(dislikes);
-        dto.setRating(likes - dislikes);
-
-        return dto;
+        return eventEnricher.toFullDto(updatedEvent, views);
     }
 
-    private Map<Long, Long> getEventsLikes(List<Event> events) {
-        return events.stream()
-                .collect(Collectors.toMap(
-                        Event::getId,
-                        event -> ratingRepository.countLikesByEventId(event.getId())
-                ));
+    private Event getEventByIdOrThrow(Long eventId) {
+        return eventRepository.findById(eventId)
+                .orElseThrow(() -> new NotFoundException("Event with id=" + eventId + " not found"));
     }
 
-    private Map<Long, Long> getEventsDislikes(List<Event> events) {
-        return events.stream()
-                .collect(Collectors.toMap(
-                        Event::getId,
-                        event -> ratingRepository.countDislikesByEventId(event.getId())
-                ));
+    private List<EventShortDto> findShortDtosInOrder(List<Long> eventIds) {
+        Map<Long, EventShortDto> eventsById = eventShortDtoRepository.findAllById(eventIds).stream()
+                .collect(Collectors.toMap(EventShortDto::getId, Function.identity()));
+        return eventIds.stream()
+                .map(eventsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
-    private Event getEventByIdOrThrow(Long eventId) {
-        return eventRepository.findById(eventId)
-                .orElseThrow(() -> new NotFoundException("Event with id=" + eventId + " not found"));
+    private boolean isIndexSort(String sort) {
+        return !"RELEVANCE".equals(sort) && !"VIEWS".equals(sort) && !"RATING".equals(sort)
+                && !"HOT".equals(sort) && !"DISTANCE".equals(sort);
     }
 
-    private Pageable createPageable(Integer from, Integer size, String sort) {
-        Sort sorting;
+    // Последним ключом сортировки всегда идёт id: он нужен для однозначного курсора
+    private Sort createSort(String sort, boolean hasText) {
         if ("EVENT_DATE".equals(sort)) {
-            sorting = Sort.by("eventDate").descending();
-        } else {
-            sorting = Sort.by("id").ascending();
+            return Sort.by(Sort.Order.desc("eventDate"), Sort.Order.asc("id"));
+        } else if ("VIEWS".equals(sort)) {
+            return Sort.by(Sort.Order.desc("views"), Sort.Order.asc("id"));
+        } else if ("RATING".equals(sort)) {
+            return Sort.by(Sort.Order.desc("rating"), Sort.Order.asc("id"));
+        } else if ("HOT".equals(sort)) {
+            return Sort.by(Sort.Order.desc("hotScore"), Sort.Order.asc("id"));
+        } else if ("RELEVANCE".equals(sort) && hasText) {
+            // Порядок по ts_rank задаёт спецификация полнотекстового поиска
+            return Sort.unsorted();
+        } else if ("DISTANCE".equals(sort)) {
+            // Порядок по расстоянию задаёт спецификация orderByDistance
+            return Sort.unsorted();
         }
-        return PageRequest.of(from > 0 ? from / size : 0, size, sorting);
+        return Sort.by("id").ascending();
     }
 
     private void updateEventFields(Event event, UpdateEventAdminRequest updateRequest) {
@@ -280,68 +304,46 @@ public class EventServiceImpl implements EventService {
         if (updateRequest.getRequestModeration() != null) {
             event.setRequestModeration(updateRequest.getRequestModeration());
         }
-    }
 
-    private Map<Long, Long> getEventsViews(List<Event> events) {
-        if (events.isEmpty()) {
-            return new HashMap<>();
+        if (updateRequest.getHighDemand() != null) {
+            event.setHighDemand(updateRequest.getHighDemand());
         }
+    }
 
-        try {
-            List<String> uris = events.stream()
-                    .map(event -> "/events/" + event.getId())
-                    .collect(Collectors.toList());
-
-            LocalDateTime start = LocalDateTime.now().minusYears(1);
-            LocalDateTime end = LocalDateTime.now().plusYears(1);
-
-            log.debug("Getting views for events: uris={}", uris);
-            List<ViewStats> stats = statsIntegrationService.getStats(start, end, uris, true);
-            log.debug("Received stats for {} events: {}", events.size(), stats);
-
-            Map<Long, Long> views = new HashMap<>();
-            for (ViewStats stat : stats) {
-                Long eventId = extractEventIdFromUri(stat.getUri());
-                if (eventId != null) {
-                    views.put(eventId, stat.getHits());
-                    log.debug("Event {} has {} views", eventId, stat.getHits());
-                }
+    private void validateGeoParams(Double lat, Double lon, Double radiusKm, List<Double> bbox, String sort) {
+        if ((lat == null) != (lon == null)) {
+            throw new ValidationException("Both lat and lon must be specified");
+        }
+        if (lat != null) {
+            validateCoordinates(lat, lon);
+        }
+        if (radiusKm != null) {
+            if (lat == null) {
+                throw new ValidationException("Search radius requires lat and lon");
+            }
+            if (radiusKm <= 0) {
+                throw new ValidationException("Search radius must be positive");
             }
-
-            return views;
-        } catch (Exception e) {
-            log.error("Failed to get views from stats service: {}", e.getMessage(), e);
-            return new HashMap<>();
         }
-    }
-
-    private Map<Long, Long> getConfirmedRequestsMap(List<Event> events) {
-        return events.stream()
-                .collect(Collectors.toMap(
-                        Event::getId,
-                        event -> requestRepository.getConfirmedRequestsCount(event.getId())
-                ));
-    }
-
-    private Long getEventViews(Long eventId) {
-        return statsIntegrationService.getEventViews(eventId);
-    }
-
-    private Long extractEventIdFromUri(String uri) {
-        try {
-            String[] parts = uri.split("/");
-            return Long.parseLong(parts[parts.length - 1]);
-        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
-            return null;
+        if (bbox != null) {
+            if (bbox.size() != 4 || bbox.stream().anyMatch(Objects::isNull)) {
+                throw new ValidationException("Bounding box must be minLon,minLat,maxLon,maxLat");
+            }
+            validateCoordinates(bbox.get(1), bbox.get(0));
+            validateCoordinates(bbox.get(3), bbox.get(2));
+            if (bbox.get(1) > bbox.get(3)) {
+                throw new ValidationException("Bounding box minLat must not be greater than maxLat");
+            }
+        }
+        if ("DISTANCE".equals(sort) && lat == null) {
+            throw new ValidationException("Sort by distance requires lat and lon");
         }
     }
 
-    private boolean isEventAvailable(Event event) {
-        if (event.getParticipantLimit() == 0) {
-            return true;
+    private void validateCoordinates(Double lat, Double lon) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            throw new ValidationException("Coordinates are out of range: lat=" + lat + ", lon=" + lon);
         }
-        Long confirmedRequests = requestRepository.getConfirmedRequestsCount(event.getId());
-        return confirmedRequests < event.getParticipantLimit();
     }
 
     private void validatePaginationParams(Integer from, Integer size) {
@@ -0,0 +1,85 @@
+package ru.practicum.ewmservice.service;
+
+import ru.practicum.ewmservice.model.Event;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Агрегаты страницы событий в виде параллельных массивов, упорядоченных по id события.
+ */
+public final class EventStats {
+
+    private final long[] ids;
+    private final long[] views;
+    private final long[] confirmedRequests;
+    private final long[] likes;
+    private final long[] dislikes;
+
+    private EventStats(int size) {
+        this.ids = new long[size];
+        this.views = new long[size];
+        this.confirmedRequests = new long[size];
+        this.likes = new long[size];
+        this.dislikes = new long[size];
+    }
+
+    public static EventStats of(List<Event> events) {
+        List<Event> sorted = events.stream()
+                .sorted(Comparator.comparing(Event::getId))
+                .distinct()
+                .toList();
+
+        EventStats stats = new EventStats(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            Event event = sorted.get(i);
+            stats.ids[i] = event.getId();
+            // Материализованные просмотры, пока не пришли актуальные из stats-server
+            stats.views[i] = event.getViews();
+            stats.confirmedRequests[i] = event.getConfirmedRequests();
+            stats.likes[i] = event.getLikes();
+            stats.dislikes[i] = event.getDislikes();
+        }
+        return stats;
+    }
+
+    public void setViews(long eventId, long value) {
+        int index = indexOf(eventId);
+        if (index >= 0) {
+            views[index] = value;
+        }
+    }
+
+    public void addRating(long eventId, long likesDelta, long dislikesDelta) {
+        int index = indexOf(eventId);
+        if (index >= 0) {
+            likes[index] += likesDelta;
+            dislikes[index] += dislikesDelta;
+        }
+    }
+
+    public long views(long eventId) {
+        int index = indexOf(eventId);
+        return index >= 0 ? views[index] : 0L;
+    }
+
+    public long confirmedRequests(long eventId) {
+        int index = indexOf(eventId);
+        return index >= 0 ? confirmedRequests[index] : 0L;
+    }
+
+    public long likes(long eventId) {
+        int index = indexOf(eventId);
+        return index >= 0 ? likes[index] : 0L;
+    }
+
+    public long dislikes(long eventId) {
+        int index = indexOf(eventId);
+        return index >= 0 ? dislikes[index] : 0L;
+    }
+
+    private int indexOf(long eventId) {
+        return Arrays.binarySearch(ids, eventId);
+    }
+}
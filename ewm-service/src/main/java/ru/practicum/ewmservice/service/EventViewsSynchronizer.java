@@ -0,0 +1,58 @@
+package ru.practicum.ewmservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewmservice.repository.EventRepository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Переносит просмотры опубликованных событий из stats-server в колонку events.views,
+ * по которой БД сортирует публичный поиск. Меняются только строки с изменившимся значением.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventViewsSynchronizer {
+
+    private final EventRepository eventRepository;
+    private final StatsIntegrationService statsIntegrationService;
+
+    @Value("${ewm.views.sync-batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${ewm.views.sync-delay:PT5M}")
+    public void synchronize() {
+        long afterId = 0L;
+        int updated = 0;
+        List<Long> batch;
+
+        do {
+            batch = eventRepository.findPublishedIdsAfter(afterId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            // Событий без просмотров нет в ответе stats-server, и при его недоступности ответ пуст,
+            // поэтому обновляются только полученные значения
+            Map<Long, Long> views = statsIntegrationService.getEventsViews(batch);
+            if (!views.isEmpty()) {
+                Long[] ids = new Long[views.size()];
+                Long[] values = new Long[views.size()];
+                int i = 0;
+                for (Map.Entry<Long, Long> entry : views.entrySet()) {
+                    ids[i] = entry.getKey();
+                    values[i++] = entry.getValue();
+                }
+                updated += eventRepository.updateViews(ids, values);
+            }
+            afterId = batch.get(batch.size() - 1);
+        } while (batch.size() == batchSize);
+
+        log.debug("Synchronized views for {} events", updated);
+    }
+}
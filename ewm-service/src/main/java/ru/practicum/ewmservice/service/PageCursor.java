@@ -0,0 +1,104 @@
+package ru.practicum.ewmservice.service;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import ru.practicum.ewmservice.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Непрозрачный курсор keyset-пагинации (параметр after). Хранит значения ключей сортировки
+ * последнего элемента страницы, последним ключом всегда идёт id.
+ */
+public final class PageCursor {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private PageCursor() {
+    }
+
+    /**
+     * Позиция начала страницы: после курсора, если он передан, иначе по смещению from/size.
+     */
+    public static ScrollPosition position(String after, Integer from, Integer size, Sort sort) {
+        if (after == null || after.isBlank()) {
+            long offset = from / size * (long) size;
+            // offset(n) указывает на n-й элемент, а страница начинается со следующего за ним
+            return offset == 0 ? ScrollPosition.offset() : ScrollPosition.offset(offset - 1);
+        }
+        return decode(after, sort);
+    }
+
+    public static String encode(Object element, Sort sort) {
+        BeanWrapper wrapper = new BeanWrapperImpl(element);
+        StringJoiner keys = new StringJoiner("&");
+        for (Sort.Order order : sort) {
+            keys.add(order.getProperty() + "=" + encodeValue(wrapper.getPropertyValue(order.getProperty())));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(keys.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ScrollPosition decode(String token, Sort sort) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor: " + token);
+        }
+
+        // Курсор действителен только для той сортировки, с которой он был выдан
+        Map<String, Object> keys = new LinkedHashMap<>();
+        Iterator<Sort.Order> orders = sort.iterator();
+        for (String key : raw.split("&")) {
+            int separator = key.indexOf('=');
+            if (separator <= 0 || !orders.hasNext()
+                    || !orders.next().getProperty().equals(key.substring(0, separator))) {
+                throw new ValidationException("Cursor does not match sort: " + token);
+            }
+            keys.put(key.substring(0, separator), decodeValue(key.substring(separator + 1), token));
+        }
+        if (orders.hasNext()) {
+            throw new ValidationException("Cursor does not match sort: " + token);
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    private static String encodeValue(Object value) {
+        if (value instanceof Long number) {
+            return "L" + number;
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return "T" + dateTime;
+        }
+        if (value instanceof Double number) {
+            return "D" + number;
+        }
+        throw new IllegalArgumentException("Unsupported cursor key type: " + value);
+    }
+
+    private static Object decodeValue(String value, String token) {
+        try {
+            if (value.startsWith("L")) {
+                return Long.parseLong(value.substring(1));
+            }
+            if (value.startsWith("T")) {
+                return LocalDateTime.parse(value.substring(1));
+            }
+            if (value.startsWith("D")) {
+                return Double.parseDouble(value.substring(1));
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new ValidationException("Invalid cursor: " + token);
+        }
+        throw new ValidationException("Invalid cursor: " + token);
+    }
+}
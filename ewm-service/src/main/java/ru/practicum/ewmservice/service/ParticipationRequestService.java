@@ -11,6 +11,11 @@ public interface ParticipationRequestService {
 
     ParticipationRequestDto createRequest(Long userId, Long eventId);
 
+    /**
+     * Создаёт заявки пользователей на одно событие одним INSERT; результаты идут в порядке userIds.
+     */
+    List<RegistrationOutcome> createRequests(Long eventId, List<Long> userIds);
+
     ParticipationRequestDto cancelRequest(Long userId, Long requestId);
 
     List<ParticipationRequestDto> getEventRequests(Long userId, Long eventId);
@@ -2,6 +2,7 @@ package ru.practicum.ewmservice.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,7 +20,12 @@ import ru.practicum.ewmservice.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,6 +37,7 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
     private final ParticipationRequestRepository requestRepository;
     private final UserRepository userRepository;
     private final EventRepository eventRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<ParticipationRequestDto> getUsersRequests(Long userId) {
@@ -59,12 +66,89 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
             request.setStatus(RequestStatus.PENDING);
         }
 
+        ParticipationRequest savedRequest;
         try {
-            ParticipationRequest savedRequest = requestRepository.save(request);
-            return ParticipationRequestMapper.toParticipationRequestDto(savedRequest);
+            savedRequest = requestRepository.save(request);
         } catch (DataIntegrityViolationException e) {
             throw new ConflictException("Request from user=" + userId + " for event=" + eventId + " already exists");
         }
+
+        // Место занимается последним запросом транзакции: блокировка строки события держится до коммита
+        if (savedRequest.getStatus() == RequestStatus.CONFIRMED && !reserveSeat(eventId)) {
+            throw new ConflictException("Event has reached participant limit");
+        }
+        return ParticipationRequestMapper.toParticipationRequestDto(savedRequest);
+    }
+
+    @Override
+    @Transactional
+    public List<RegistrationOutcome> createRequests(Long eventId, List<Long> userIds) {
+        Event event = getEventByIdOrThrow(eventId);
+        if (event.getState() != EventState.PUBLISHED) {
+            throw new ConflictException("Cannot participate in unpublished event");
+        }
+
+        Set<Long> users = new HashSet<>(userRepository.findExistingIds(userIds));
+        Set<Long> requesters = new HashSet<>(requestRepository.findRequesterIds(eventId, userIds));
+        boolean confirm = !event.getRequestModeration() || event.getParticipantLimit() == 0;
+        boolean limited = confirm && event.getParticipantLimit() > 0;
+        long capacity = Long.MAX_VALUE;
+        if (!confirm && event.getConfirmedRequests() >= event.getParticipantLimit()) {
+            capacity = 0;
+        }
+
+        RegistrationOutcome[] outcomes = new RegistrationOutcome[userIds.size()];
+        // Пользователь -> позиция его заявки в userIds
+        Map<Long, Integer> positions = new LinkedHashMap<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            Long userId = userIds.get(i);
+            if (!users.contains(userId)) {
+                outcomes[i] = RegistrationOutcome.rejected("User with id=" + userId + " not found");
+            } else if (event.getInitiator().getId().equals(userId)) {
+                outcomes[i] = RegistrationOutcome.rejected("Event initiator cannot create request for their own event");
+            } else if (requesters.contains(userId) || positions.containsKey(userId)) {
+                outcomes[i] = RegistrationOutcome.rejected(
+                        "Request from user=" + userId + " for event=" + eventId + " already exists");
+            } else if (positions.size() >= capacity) {
+                outcomes[i] = RegistrationOutcome.rejected("Event has reached participant limit");
+            } else {
+                positions.put(userId, i);
+            }
+        }
+        if (positions.isEmpty()) {
+            return Arrays.asList(outcomes);
+        }
+
+        long claimed = 0;
+        if (limited) {
+            // Места на всю пачку занимаются одним UPDATE до вставки; вставляется не больше заявок, чем досталось мест
+            claimed = claimSeats(eventId, positions.size());
+            List<Long> overflow = positions.keySet().stream().skip(claimed).toList();
+            overflow.forEach(userId -> outcomes[positions.remove(userId)] =
+                    RegistrationOutcome.rejected("Event has reached participant limit"));
+            if (positions.isEmpty()) {
+                return Arrays.asList(outcomes);
+            }
+        }
+
+        RequestStatus status = confirm ? RequestStatus.CONFIRMED : RequestStatus.PENDING;
+        List<Object[]> rows = requestRepository.insertRequests(eventId, positions.keySet().toArray(new Long[0]),
+                status.name(), LocalDateTime.now());
+        for (Object[] row : rows) {
+            ParticipationRequestDto created = ParticipationRequestMapper.toParticipationRequestDto(row);
+            outcomes[positions.remove(created.getRequester())] = RegistrationOutcome.accepted(created);
+        }
+        // Не вставленные заявки успели создать параллельно
+        positions.forEach((userId, i) -> outcomes[i] = RegistrationOutcome.rejected(
+                "Request from user=" + userId + " for event=" + eventId + " already exists"));
+
+        if (limited) {
+            settleSeats(eventId, claimed, rows.size());
+        } else if (confirm && !rows.isEmpty()) {
+            incrementConfirmedRequests(eventId, rows.size());
+        }
+        log.debug("Registered {} of {} requests for event {}", rows.size(), userIds.size(), eventId);
+        return Arrays.asList(outcomes);
     }
 
     @Override
@@ -76,9 +160,14 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
             throw new ValidationException("User can only cancel their own requests");
         }
 
+        boolean wasConfirmed = request.getStatus() == RequestStatus.CONFIRMED;
         request.setStatus(RequestStatus.CANCELED);
         ParticipationRequest updatedRequest = requestRepository.save(request);
 
+        if (wasConfirmed) {
+            incrementConfirmedRequests(request.getEvent().getId(), -1);
+        }
+
         return ParticipationRequestMapper.toParticipationRequestDto(updatedRequest);
     }
 
@@ -111,8 +200,7 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
         }
 
         if (event.getParticipantLimit() > 0) {
-            Long confirmedCount = requestRepository.countByEventIdAndStatus(event.getId(), RequestStatus.CONFIRMED);
-            if (confirmedCount >= event.getParticipantLimit()) {
+            if (event.getConfirmedRequests() >= event.getParticipantLimit()) {
                 throw new ConflictException("Event has reached participant limit");
             }
         }
@@ -140,48 +228,81 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
                                                               EventRequestStatusUpdateRequest request) {
         log.info("Updating request status: userId={}, eventId={}, request={}", userId, eventId, request);
 
-        Event event = getEventAndValidateInitiator(userId, eventId);
-        List<ParticipationRequest> requestsToUpdate = requestRepository.findByIdIn(request.getRequestIds());
+        getEventAndValidateInitiator(userId, eventId);
+        boolean confirm = "CONFIRMED".equals(request.getStatus());
+        if (!confirm && !"REJECTED".equals(request.getStatus())) {
+            throw new ValidationException("Unknown request status: " + request.getStatus());
+        }
 
         List<ParticipationRequestDto> confirmed = new ArrayList<>();
         List<ParticipationRequestDto> rejected = new ArrayList<>();
-
-        Long confirmedCount = requestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED);
-        boolean limitReached = event.getParticipantLimit() > 0 &&
-                confirmedCount >= event.getParticipantLimit();
-
-        if (limitReached && "CONFIRMED".equals(request.getStatus())) {
-            throw new ConflictException("Event has reached participant limit");
+        List<Long> requestIds = request.getRequestIds();
+        if (requestIds == null || requestIds.isEmpty()) {
+            return new EventRequestStatusUpdateResult(confirmed, rejected);
         }
 
-        for (ParticipationRequest participationRequest : requestsToUpdate) {
-            if (!participationRequest.getEvent().getId().equals(eventId)) {
-                throw new ValidationException("Request doesn't belong to this event");
-            }
+        Object[] mismatches = requestRepository.countStatusUpdateMismatches(eventId, requestIds).get(0);
+        if (((Number) mismatches[0]).longValue() > 0) {
+            throw new ValidationException("Request doesn't belong to this event");
+        }
+        if (((Number) mismatches[1]).longValue() > 0) {
+            throw new ConflictException("Request must be in PENDING status");
+        }
 
-            if (participationRequest.getStatus() != RequestStatus.PENDING) {
-                throw new ConflictException("Request must be in PENDING status");
+        long capacity = 0;
+        if (confirm) {
+            // Места занимаются одним UPDATE до смены статусов, подтверждается не больше заявок, чем досталось мест
+            capacity = claimSeats(eventId, requestIds.size());
+            if (capacity == 0) {
+                throw new ConflictException("Event has reached participant limit");
             }
+        }
 
-            if ("CONFIRMED".equals(request.getStatus())) {
-                if (event.getParticipantLimit() > 0 && confirmedCount >= event.getParticipantLimit()) {
-                    participationRequest.setStatus(RequestStatus.REJECTED);
-                    rejected.add(ParticipationRequestMapper.toParticipationRequestDto(participationRequest));
-                } else {
-                    participationRequest.setStatus(RequestStatus.CONFIRMED);
-                    confirmed.add(ParticipationRequestMapper.toParticipationRequestDto(participationRequest));
-                    confirmedCount++;
-                }
-            } else if ("REJECTED".equals(request.getStatus())) {
-                participationRequest.setStatus(RequestStatus.REJECTED);
-                rejected.add(ParticipationRequestMapper.toParticipationRequestDto(participationRequest));
+        // rejectOverflow относится только к подтверждению: при отклонении capacity = 0 и все заявки — «сверх лимита»
+        boolean rejectOverflow = !confirm || !Boolean.FALSE.equals(request.getRejectOverflow());
+        for (Object[] row : requestRepository.updatePendingStatuses(eventId, requestIds, capacity, rejectOverflow)) {
+            ParticipationRequestDto updated = ParticipationRequestMapper.toParticipationRequestDto(row);
+            if (updated.getStatus() == RequestStatus.CONFIRMED) {
+                confirmed.add(updated);
+            } else {
+                rejected.add(updated);
             }
         }
 
-        requestRepository.saveAll(requestsToUpdate);
+        if (confirm) {
+            settleSeats(eventId, capacity, confirmed.size());
+        }
         return new EventRequestStatusUpdateResult(confirmed, rejected);
     }
 
+    private long claimSeats(Long eventId, long seats) {
+        List<Number> claimed = eventRepository.claimSeats(eventId, seats);
+        return claimed.isEmpty() ? 0 : claimed.get(0).longValue();
+    }
+
+    // Места, занятые под заявки, которые не удалось подтвердить или создать, возвращаются событию
+    private void settleSeats(Long eventId, long claimed, long used) {
+        if (claimed > used) {
+            eventRepository.incrementConfirmedRequests(eventId, used - claimed);
+        }
+        if (used > 0) {
+            eventPublisher.publishEvent(EventActivity.requests(eventId, used));
+        }
+    }
+
+    private boolean reserveSeat(Long eventId) {
+        if (eventRepository.reserveSeat(eventId) == 0) {
+            return false;
+        }
+        eventPublisher.publishEvent(EventActivity.requests(eventId, 1));
+        return true;
+    }
+
+    private void incrementConfirmedRequests(Long eventId, long delta) {
+        eventRepository.incrementConfirmedRequests(eventId, delta);
+        eventPublisher.publishEvent(EventActivity.requests(eventId, delta));
+    }
+
     private User getUserByIdOrThrow(Long userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("User with id=" + userId + " not found"));
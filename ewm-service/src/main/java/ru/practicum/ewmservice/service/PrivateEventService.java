@@ -5,10 +5,8 @@ import ru.practicum.ewmservice.dto.EventShortDto;
 import ru.practicum.ewmservice.dto.NewEventDto;
 import ru.practicum.ewmservice.dto.UpdateEventUserRequest;
 
-import java.util.List;
-
 public interface PrivateEventService {
-    List<EventShortDto> getUserEvents(Long userId, Integer from, Integer size);
+    CursorPage<EventShortDto> getUserEvents(Long userId, Integer from, Integer size, String after);
 
     EventFullDto createEvent(Long userId, NewEventDto newEventDto);
 
@@ -2,9 +2,9 @@ package ru.practicum.ewmservice.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewmservice.dto.EventFullDto;
@@ -23,7 +23,8 @@ import ru.practicum.ewmservice.repository.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
@@ -34,12 +35,12 @@ public class PrivateEventServiceImpl implements PrivateEventService {
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
-    private final ParticipationRequestRepository requestRepository;
-    private final StatsIntegrationService statsIntegrationService;
-    private final EventRatingRepository ratingRepository;
+    private final EventShortDtoRepository eventShortDtoRepository;
+    private final EventEnricher eventEnricher;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
-    public List<EventShortDto> getUserEvents(Long userId, Integer from, Integer size) {
+    public CursorPage<EventShortDto> getUserEvents(Long userId, Integer from, Integer size, String after) {
         if (from < 0) {
             throw new ValidationException("From must be non-negative");
         }
@@ -51,22 +52,11 @@ public class PrivateEventServiceImpl implements PrivateEventService {
             throw new NotFoundException("User with id=" + userId + " not found");
         }
 
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("id").ascending());
-        List<Event> events = eventRepository.findByInitiatorId(userId, pageable);
-
-        return events.stream()
-                .map(event -> {
-                    Long views = statsIntegrationService.getEventViews(event.getId());
-                    Long confirmedRequests = requestRepository.getConfirmedRequestsCount(event.getId());
-                    Long likes = ratingRepository.countLikesByEventId(event.getId());
-                    Long dislikes = ratingRepository.countDislikesByEventId(event.getId());
-                    EventShortDto dto = EventMapper.toEventShortDto(event, views, confirmedRequests);
-                    dto.setLikes(likes);
-                    dto.setDislikes(dislikes);
-                    dto.setRating(likes - dislikes);
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        Sort sorting = Sort.by("id").ascending();
+        Window<EventShortDto> window = eventShortDtoRepository.findAll(EventSpecifications.hasUsers(List.of(userId)),
+                sorting, PageCursor.position(after, from, size, sorting), size);
+
+        return CursorPage.of(window, sorting, eventEnricher::applyLiveStats);
     }
 
     @Override
@@ -83,36 +73,25 @@ public class PrivateEventServiceImpl implements PrivateEventService {
 
         Event event = EventMapper.toEvent(newEventDto, user, category);
         Event savedEvent = eventRepository.save(event);
+        // С первым событием пользователь попадает в рейтинг инициаторов
+        userRepository.addReputation(userId);
 
-        EventFullDto dto = EventMapper.toEventFullDto(savedEvent, 0L, 0L);
-        dto.setLikes(0L);
-        dto.setDislikes(0L);
-        dto.setRating(0L);
-
-        return dto;
+        return EventMapper.toEventFullDto(savedEvent, EventStats.of(List.of(savedEvent)));
     }
 
     @Override
     public EventFullDto getUserEvent(Long userId, Long eventId) {
         Event event = getEventByIdAndInitiatorIdOrThrow(eventId, userId);
 
-        Long views = statsIntegrationService.getEventViews(eventId);
-        Long confirmedRequests = requestRepository.getConfirmedRequestsCount(eventId);
-        Long likes = ratingRepository.countLikesByEventId(eventId);
-        Long dislikes = ratingRepository.countDislikesByEventId(eventId);
-
-        EventFullDto dto = EventMapper.toEventFullDto(event, views, confirmedRequests);
-        dto.setLikes(likes);
-        dto.setDislikes(dislikes);
-        dto.setRating(likes - dislikes);
-
-        return dto;
+        return eventEnricher.toFullDto(event, eventEnricher.fetchViews(List.of(eventId)));
     }
 
     @Override
     @Transactional
     public EventFullDto updateEvent(Long userId, Long eventId, UpdateEventUserRequest updateEventUserRequest) {
         Event event = getEventByIdAndInitiatorIdOrThrow(eventId, userId);
+        Long previousCategoryId = event.getCategory().getId();
+        boolean previousPaid = Boolean.TRUE.equals(event.getPaid());
 
         if (event.getState() == EventState.PUBLISHED) {
             throw new ConflictException("Only pending or canceled events can be changed");
@@ -132,19 +111,11 @@ public class PrivateEventServiceImpl implements PrivateEventService {
             }
         }
 
+        CompletableFuture<Map<Long, Long>> views = eventEnricher.fetchViews(List.of(eventId));
         Event updatedEvent = eventRepository.save(event);
+        eventPublisher.publishEvent(EventChange.of(updatedEvent, previousCategoryId, previousPaid));
 
-        Long views = statsIntegrationService.getEventViews(eventId);
-        Long confirmedRequests = requestRepository.getConfirmedRequestsCount(eventId);
-        Long likes = ratingRepository.countLikesByEventId(eventId);
-        Long dislikes = ratingRepository.countDislikesByEventId(eventId);
-
-        EventFullDto dto = EventMapper.toEventFullDto(updatedEvent, views, confirmedRequests);
-        dto.setLikes(likes);
-        dto.setDislikes(dislikes);
-        dto.setRating(likes - dislikes);
-
-        return dto;
+        return eventEnricher.toFullDto(updatedEvent, views);
     }
 
     private User getUserByIdOrThrow(Long userId) {
@@ -262,5 +233,8 @@ public class PrivateEventServiceImpl implements PrivateEventService {
         if (updateRequest.getRequestModeration() != null) {
             event.setRequestModeration(updateRequest.getRequestModeration());
         }
+        if (updateRequest.getHighDemand() != null) {
+            event.setHighDemand(updateRequest.getHighDemand());
+        }
     }
 }
\ No newline at end of file
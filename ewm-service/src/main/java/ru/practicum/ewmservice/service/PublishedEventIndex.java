@@ -0,0 +1,524 @@
+package ru.practicum.ewmservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.ewmservice.model.EventState;
+import ru.practicum.ewmservice.repository.EventRepository;
+import ru.practicum.ewmservice.repository.SearchText;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory инвертированный индекс опубликованных событий для публичного поиска по тексту.
+ * <p>
+ * Термы документа — лексемы колонки search_vector (название, аннотация и описание после
+ * to_tsvector('simple', ...)), поэтому индекс находит те же события, что и полнотекстовый поиск БД.
+ * Каждому событию выдаётся плотный номер документа, списки вхождений термов хранятся как varint-дельты,
+ * а категория, платность и дата события лежат в doc values.
+ * Изменённое событие получает новый документ, старый помечается удалённым; когда удалённых
+ * становится больше живых, индекс перестраивается из БД.
+ */
+@Slf4j
+@Component
+public class PublishedEventIndex {
+
+    private static final Pattern LEXEME_SEPARATOR = Pattern.compile(" ");
+    private static final int MIN_DELETED_FOR_COMPACTION = 1000;
+
+    private final EventRepository eventRepository;
+    private final boolean enabled;
+    private final int batchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Segment segment = new Segment();
+    // Изменения, пришедшие во время перестроения, повторно применяются к новому сегменту
+    private List<Update> pendingUpdates;
+    private volatile boolean ready;
+
+    public PublishedEventIndex(EventRepository eventRepository,
+                               @Value("${ewm.search.index.enabled:true}") boolean enabled,
+                               @Value("${ewm.search.index.rebuild-batch-size:1000}") int batchSize) {
+        this.eventRepository = eventRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Индекс понимает только простой текст {@link SearchText}; кавычки, OR и исключения обрабатывает
+     * полнотекстовый поиск БД.
+     */
+    public boolean canSearch(String text) {
+        return enabled && ready && !SearchText.plainTerms(text).isEmpty();
+    }
+
+    /**
+     * Возвращает id событий страницы, содержащих все слова текста, последнее — по префиксу,
+     * в порядке eventDate desc или id asc.
+     */
+    public List<Long> search(String text, List<Long> categories, Boolean paid,
+                             LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                             boolean sortByEventDate, int offset, int limit) {
+        List<String> words = SearchText.plainTerms(text);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        Set<String> terms = new HashSet<>(words.subList(0, words.size() - 1));
+        String prefix = words.get(words.size() - 1);
+
+        long minDate;
+        long maxDate;
+        if (rangeStart == null && rangeEnd == null) {
+            minDate = toKey(LocalDateTime.now()) + 1;
+            maxDate = Long.MAX_VALUE;
+        } else {
+            minDate = rangeStart != null ? toKey(rangeStart) : Long.MIN_VALUE;
+            maxDate = rangeEnd != null ? toKey(rangeEnd) : Long.MAX_VALUE;
+        }
+        Set<Long> categoryFilter = categories == null || categories.isEmpty() ? null : new HashSet<>(categories);
+
+        lock.readLock().lock();
+        try {
+            return segment.search(terms, prefix, categoryFilter, paid, minDate, maxDate, sortByEventDate, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEventChange(EventChange change) {
+        if (!enabled) {
+            return;
+        }
+        Document document = null;
+        if (change.state() == EventState.PUBLISHED) {
+            // Лексемы читаются из БД до блокировки индекса; удалённое событие просто убирается из индекса
+            List<String> lexemes = eventRepository.findSearchLexemes(change.id());
+            if (!lexemes.isEmpty()) {
+                document = new Document(change.categoryId(), change.paid(), change.eventDate(),
+                        split(lexemes.get(0)));
+            }
+        }
+        Update update = new Update(change.id(), document);
+
+        lock.writeLock().lock();
+        try {
+            segment.apply(update);
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ewm.search.index.compaction-check-delay:PT5M}")
+    public void compactIfNeeded() {
+        if (!enabled || !ready) {
+            return;
+        }
+        boolean compact;
+        lock.readLock().lock();
+        try {
+            int deleted = segment.deletedCount();
+            compact = deleted > MIN_DELETED_FOR_COMPACTION && deleted > segment.liveCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (compact) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pendingUpdates != null) {
+                return;
+            }
+            pendingUpdates = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Segment rebuilt = new Segment();
+        try {
+            long afterId = 0L;
+            List<Object[]> batch;
+            do {
+                batch = eventRepository.findPublishedSearchLexemesAfter(afterId, batchSize);
+                for (Object[] row : batch) {
+                    rebuilt.apply(new Update(((Number) row[0]).longValue(), new Document(
+                            ((Number) row[1]).longValue(),
+                            Boolean.TRUE.equals(row[2]),
+                            row[3] instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) row[3],
+                            split((String) row[4]))));
+                }
+                if (!batch.isEmpty()) {
+                    afterId = ((Number) batch.get(batch.size() - 1)[0]).longValue();
+                }
+            } while (batch.size() == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild published events index: {}", e.getMessage(), e);
+            lock.writeLock().lock();
+            try {
+                pendingUpdates = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingUpdates.forEach(rebuilt::apply);
+            pendingUpdates = null;
+            segment = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Published events index rebuilt with {} events", rebuilt.liveCount());
+    }
+
+    private static String[] split(String lexemes) {
+        return lexemes == null || lexemes.isEmpty() ? new String[0] : LEXEME_SEPARATOR.split(lexemes);
+    }
+
+    private static long toKey(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + dateTime.getNano();
+    }
+
+    private record Document(long categoryId, boolean paid, LocalDateTime eventDate, String[] terms) {
+    }
+
+    // document null — событие удалено из индекса
+    private record Update(Long eventId, Document document) {
+    }
+
+    private static final class Segment {
+        private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+        private final Map<Long, Integer> docByEventId = new HashMap<>();
+        private final BitSet live = new BitSet();
+        private final BitSet paid = new BitSet();
+        private long[] eventIds = new long[64];
+        private long[] categoryIds = new long[64];
+        private long[] eventDates = new long[64];
+        private int docCount;
+
+        void apply(Update update) {
+            Integer previous = docByEventId.remove(update.eventId());
+            if (previous != null) {
+                live.clear(previous);
+            }
+            if (update.document() != null) {
+                add(update.eventId(), update.document());
+            }
+        }
+
+        int liveCount() {
+            return docByEventId.size();
+        }
+
+        int deletedCount() {
+            return docCount - docByEventId.size();
+        }
+
+        List<Long> search(Set<String> terms, String prefix, Set<Long> categories, Boolean paidFilter,
+                          long minDate, long maxDate, boolean sortByEventDate, int offset, int limit) {
+            PostingList[] lists = new PostingList[terms.size()];
+            int i = 0;
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) {
+                    return List.of();
+                }
+                lists[i++] = list;
+            }
+            Collection<PostingList> prefixLists = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                    .values();
+            if (prefixLists.isEmpty()) {
+                return List.of();
+            }
+
+            int[] docs;
+            int count;
+            if (lists.length == 0) {
+                docs = union(prefixLists);
+                count = docs.length;
+            } else {
+                // Пересечение начинается с самого короткого списка
+                Arrays.sort(lists, Comparator.comparingInt(PostingList::size));
+                docs = lists[0].decode();
+                count = docs.length;
+                for (int k = 1; k < lists.length && count > 0; k++) {
+                    count = lists[k].retain(docs, count);
+                }
+                if (count > 0) {
+                    count = retain(docs, count, union(prefixLists));
+                }
+            }
+
+            // Страница отбирается кучей из offset + limit лучших документов, без сортировки всех совпадений
+            TopDocs top = new TopDocs((int) Math.min((long) offset + limit, count), sortByEventDate);
+            for (int j = 0; j < count; j++) {
+                int doc = docs[j];
+                if (live.get(doc)
+                        && (categories == null || categories.contains(categoryIds[doc]))
+                        && (paidFilter == null || paidFilter == paid.get(doc))
+                        && eventDates[doc] >= minDate && eventDates[doc] <= maxDate) {
+                    top.offer(doc);
+                }
+            }
+
+            int[] sorted = top.drainSorted();
+            List<Long> page = new ArrayList<>(Math.max(Math.min(limit, sorted.length - offset), 0));
+            for (int j = offset; j < sorted.length; j++) {
+                page.add(eventIds[sorted[j]]);
+            }
+            return page;
+        }
+
+        /**
+         * Возрастающие номера документов, входящих хотя бы в один из списков.
+         */
+        private static int[] union(Collection<PostingList> lists) {
+            if (lists.size() == 1) {
+                return lists.iterator().next().decode();
+            }
+            int[] docs = lists.stream().flatMapToInt(list -> IntStream.of(list.decode())).sorted().toArray();
+            int count = 0;
+            for (int j = 0; j < docs.length; j++) {
+                if (count == 0 || docs[count - 1] != docs[j]) {
+                    docs[count++] = docs[j];
+                }
+            }
+            return Arrays.copyOf(docs, count);
+        }
+
+        /**
+         * Оставляет в первых count элементах docs только документы из возрастающего массива other.
+         */
+        private static int retain(int[] docs, int count, int[] other) {
+            int kept = 0;
+            int position = 0;
+            for (int j = 0; j < count && position < other.length; j++) {
+                while (position < other.length && other[position] < docs[j]) {
+                    position++;
+                }
+                if (position < other.length && other[position] == docs[j]) {
+                    docs[kept++] = docs[j];
+                }
+            }
+            return kept;
+        }
+
+        private void add(Long eventId, Document document) {
+            int doc = docCount++;
+            if (doc == eventIds.length) {
+                int capacity = eventIds.length * 2;
+                eventIds = Arrays.copyOf(eventIds, capacity);
+                categoryIds = Arrays.copyOf(categoryIds, capacity);
+                eventDates = Arrays.copyOf(eventDates, capacity);
+            }
+            eventIds[doc] = eventId;
+            categoryIds[doc] = document.categoryId();
+            eventDates[doc] = toKey(document.eventDate());
+            paid.set(doc, document.paid());
+            live.set(doc);
+            docByEventId.put(eventId, doc);
+
+            for (String term : document.terms()) {
+                postings.computeIfAbsent(term, t -> new PostingList()).add(doc);
+            }
+        }
+
+        /**
+         * Не больше capacity первых документов в порядке eventDate desc, id asc или id asc.
+         * Двоичная куча на int[], в вершине — последний из отобранных документов.
+         */
+        private final class TopDocs {
+            private final int[] heap;
+            private final boolean sortByEventDate;
+            private int size;
+
+            private TopDocs(int capacity, boolean sortByEventDate) {
+                this.heap = new int[capacity];
+                this.sortByEventDate = sortByEventDate;
+            }
+
+            void offer(int doc) {
+                if (size < heap.length) {
+                    heap[size] = doc;
+                    siftUp(size++);
+                } else if (size > 0 && before(doc, heap[0])) {
+                    heap[0] = doc;
+                    siftDown(0);
+                }
+            }
+
+            /**
+             * Отобранные документы по порядку; куча после этого пуста.
+             */
+            int[] drainSorted() {
+                int[] sorted = new int[size];
+                while (size > 0) {
+                    sorted[size - 1] = heap[0];
+                    heap[0] = heap[--size];
+                    siftDown(0);
+                }
+                return sorted;
+            }
+
+            private boolean before(int a, int b) {
+                if (sortByEventDate && eventDates[a] != eventDates[b]) {
+                    return eventDates[a] > eventDates[b];
+                }
+                return eventIds[a] < eventIds[b];
+            }
+
+            private void siftUp(int index) {
+                while (index > 0) {
+                    int parent = (index - 1) / 2;
+                    if (!before(heap[parent], heap[index])) {
+                        return;
+                    }
+                    swap(parent, index);
+                    index = parent;
+                }
+            }
+
+            private void siftDown(int index) {
+                while (true) {
+                    int last = index;
+                    int left = 2 * index + 1;
+                    int right = left + 1;
+                    if (left < size && before(heap[last], heap[left])) {
+                        last = left;
+                    }
+                    if (right < size && before(heap[last], heap[right])) {
+                        last = right;
+                    }
+                    if (last == index) {
+                        return;
+                    }
+                    swap(index, last);
+                    index = last;
+                }
+            }
+
+            private void swap(int i, int j) {
+                int doc = heap[i];
+                heap[i] = heap[j];
+                heap[j] = doc;
+            }
+        }
+    }
+
+    /**
+     * Возрастающий список номеров документов, закодированный разностями в varint.
+     */
+    static final class PostingList {
+        private byte[] data = new byte[8];
+        private int length;
+        private int size;
+        private int lastDoc = -1;
+
+        int size() {
+            return size;
+        }
+
+        void add(int doc) {
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            int delta = doc - lastDoc;
+            while ((delta & ~0x7F) != 0) {
+                data[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            data[length++] = (byte) delta;
+            lastDoc = doc;
+            size++;
+        }
+
+        int[] decode() {
+            int[] docs = new int[size];
+            int position = 0;
+            int doc = -1;
+            for (int i = 0; i < size; i++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                doc += delta;
+                docs[i] = doc;
+            }
+            return docs;
+        }
+
+        /**
+         * Оставляет в первых count элементах docs только документы из этого списка, возвращает их число.
+         */
+        int retain(int[] docs, int count) {
+            int kept = 0;
+            int position = 0;
+            int read = 0;
+            int doc = -1;
+            for (int i = 0; i < count; i++) {
+                int target = docs[i];
+                while (doc < target && read < size) {
+                    int delta = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = data[position++];
+                        delta |= (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    doc += delta;
+                    read++;
+                }
+                if (doc == target) {
+                    docs[kept++] = target;
+                } else if (doc < target) {
+                    break;
+                }
+            }
+            return kept;
+        }
+    }
+}
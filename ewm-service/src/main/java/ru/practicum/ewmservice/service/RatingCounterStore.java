@@ -0,0 +1,167 @@
+package ru.practicum.ewmservice.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.ewmservice.repository.EventRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Ещё не сохранённые в events приращения лайков и дизлайков. Оценка после коммита попадает сюда,
+ * а не в UPDATE строки события, поэтому частые оценки популярного события не конкурируют за её блокировку.
+ * Приращения периодически сохраняются одним пакетным UPDATE; DTO событий складывают их с материализованными
+ * счётчиками.
+ * <p>
+ * Приращения, не сохранённые до остановки, теряются, их восстанавливает сверка счётчиков с event_ratings,
+ * которая выполняется и при старте. Сортировка по рейтингу видит оценки после сохранения.
+ * <p>
+ * Оценка, записанная в ещё не завершённой транзакции, считается незавершённой до её коммита или отката:
+ * по {@link #isSettled(Long)} сверка пропускает события, у которых есть незавершённые или несохранённые оценки.
+ * Все изменения счётчика и его проверка идут внутри compute карты, поэтому видны целиком.
+ */
+@Slf4j
+@Component
+public class RatingCounterStore {
+
+    private final EventRepository eventRepository;
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    public RatingCounterStore(EventRepository eventRepository) {
+        this.eventRepository = eventRepository;
+    }
+
+    public long pendingLikes(Long eventId) {
+        Counter counter = counters.get(eventId);
+        return counter != null ? counter.likes.sum() : 0L;
+    }
+
+    public long pendingDislikes(Long eventId) {
+        Counter counter = counters.get(eventId);
+        return counter != null ? counter.dislikes.sum() : 0L;
+    }
+
+    /**
+     * true, если у события нет ни несохранённых приращений, ни оценок в незавершённых транзакциях.
+     */
+    public boolean isSettled(Long eventId) {
+        boolean[] settled = {true};
+        counters.computeIfPresent(eventId, (id, counter) -> {
+            settled[0] = counter.isEmpty();
+            return counter;
+        });
+        return settled[0];
+    }
+
+    // Число событий с несохранёнными приращениями
+    int size() {
+        return counters.size();
+    }
+
+    /**
+     * Оценка в транзакции до коммита отмечается незавершённой, после коммита её приращение попадает в счётчик.
+     * Без транзакции приращение добавляется сразу.
+     */
+    @EventListener
+    public void onEventActivity(EventActivity activity) {
+        if (activity.likes() == 0 && activity.dislikes() == 0) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update(activity.eventId(), counter -> counter.add(activity));
+            return;
+        }
+        update(activity.eventId(), counter -> counter.inFlight.increment());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // Приращение и снятие отметки одним compute: сверка не увидит оценку ни в одном из счётчиков
+                update(activity.eventId(), counter -> {
+                    if (status == STATUS_COMMITTED) {
+                        counter.add(activity);
+                    }
+                    counter.inFlight.decrement();
+                });
+            }
+        });
+    }
+
+    /**
+     * Сохраняет накопленные приращения. Из счётчиков вычитается ровно сохранённое и только после коммита,
+     * поэтому оценки, пришедшие во время сохранения, остаются до следующего раза, а при ошибке не теряются.
+     * Обнулившиеся счётчики удаляются, чтобы карта не росла на все когда-либо оценённые события.
+     */
+    @Scheduled(fixedDelayString = "${ewm.ratings.checkpoint-delay:PT5S}")
+    public void checkpoint() {
+        List<Long> ids = new ArrayList<>();
+        List<Long> likes = new ArrayList<>();
+        List<Long> dislikes = new ArrayList<>();
+        counters.forEach((eventId, counter) -> {
+            long eventLikes = counter.likes.sum();
+            long eventDislikes = counter.dislikes.sum();
+            if (eventLikes != 0 || eventDislikes != 0) {
+                ids.add(eventId);
+                likes.add(eventLikes);
+                dislikes.add(eventDislikes);
+            }
+        });
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        eventRepository.addRatingCounters(ids.toArray(new Long[0]), likes.toArray(new Long[0]),
+                dislikes.toArray(new Long[0]));
+        for (int i = 0; i < ids.size(); i++) {
+            long savedLikes = likes.get(i);
+            long savedDislikes = dislikes.get(i);
+            counters.computeIfPresent(ids.get(i), (id, counter) -> {
+                counter.likes.add(-savedLikes);
+                counter.dislikes.add(-savedDislikes);
+                return counter.isEmpty() ? null : counter;
+            });
+        }
+        log.debug("Checkpointed rating counters for {} events", ids.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        try {
+            checkpoint();
+        } catch (RuntimeException e) {
+            log.error("Failed to checkpoint rating counters on shutdown: {}", e.getMessage(), e);
+        }
+    }
+
+    // Изменение внутри compute: checkpoint не может удалить счётчик между его получением и изменением
+    private void update(Long eventId, Consumer<Counter> change) {
+        counters.compute(eventId, (id, counter) -> {
+            Counter target = counter != null ? counter : new Counter();
+            change.accept(target);
+            return target.isEmpty() ? null : target;
+        });
+    }
+
+    private static class Counter {
+        private final LongAdder likes = new LongAdder();
+        private final LongAdder dislikes = new LongAdder();
+        private final LongAdder inFlight = new LongAdder();
+
+        private void add(EventActivity activity) {
+            likes.add(activity.likes());
+            dislikes.add(activity.dislikes());
+        }
+
+        private boolean isEmpty() {
+            return likes.sum() == 0 && dislikes.sum() == 0 && inFlight.sum() == 0;
+        }
+    }
+}
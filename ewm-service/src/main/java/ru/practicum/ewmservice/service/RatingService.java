@@ -17,7 +17,7 @@ public interface RatingService {
 
     RatingStatsDto getEventRatingStats(Long eventId);
 
-    List<RatingStatsDto> getTopRatedEvents(Integer from, Integer size);
+    List<RatingStatsDto> getTopRatedEvents(Integer from, Integer size, String sort);
 
     List<RatingStatsDto> getTopRatedUsers(Integer from, Integer size);
 
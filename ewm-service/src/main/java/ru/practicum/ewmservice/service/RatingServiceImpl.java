@@ -2,6 +2,7 @@ package ru.practicum.ewmservice.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -23,7 +24,6 @@ import ru.practicum.ewmservice.repository.UserRepository;
 
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -35,6 +35,8 @@ public class RatingServiceImpl implements RatingService {
     private final EventRatingRepository ratingRepository;
     private final UserRepository userRepository;
     private final EventRepository eventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RatingCounterStore ratingCounterStore;
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     @Override
@@ -63,6 +65,11 @@ public class RatingServiceImpl implements RatingService {
         rating.setIsLike(ratingRequest.getIsLike());
 
         EventRating savedRating = ratingRepository.save(rating);
+        if (ratingRequest.getIsLike()) {
+            incrementRatingCounters(eventId, 1, 0);
+        } else {
+            incrementRatingCounters(eventId, 0, 1);
+        }
         log.info("User {} {} event {}", userId, ratingRequest.getIsLike() ? "liked" : "disliked", eventId);
 
         return EventRatingMapper.toEventRatingDto(savedRating, formatter);
@@ -75,6 +82,11 @@ public class RatingServiceImpl implements RatingService {
                 .orElseThrow(() -> new NotFoundException("Rating not found for user " + userId + " and event " + eventId));
 
         ratingRepository.delete(rating);
+        if (rating.getIsLike()) {
+            incrementRatingCounters(eventId, -1, 0);
+        } else {
+            incrementRatingCounters(eventId, 0, -1);
+        }
         log.info("User {} removed rating for event {}", userId, eventId);
     }
 
@@ -84,8 +96,13 @@ public class RatingServiceImpl implements RatingService {
         EventRating rating = ratingRepository.findByUserIdAndEventId(userId, eventId)
                 .orElseThrow(() -> new NotFoundException("Rating not found for user " + userId + " and event " + eventId));
 
+        boolean wasLike = rating.getIsLike();
         rating.setIsLike(ratingRequest.getIsLike());
         EventRating updatedRating = ratingRepository.save(rating);
+        if (wasLike != ratingRequest.getIsLike()) {
+            long delta = ratingRequest.getIsLike() ? 1 : -1;
+            incrementRatingCounters(eventId, delta, -delta);
+        }
         log.info("User {} updated rating for event {} to {}", userId, eventId, ratingRequest.getIsLike() ? "like" : "dislike");
 
         return EventRatingMapper.toEventRatingDto(updatedRating, formatter);
@@ -104,13 +121,9 @@ public class RatingServiceImpl implements RatingService {
 
     @Override
     public RatingStatsDto getEventRatingStats(Long eventId) {
-        if (!eventRepository.existsById(eventId)) {
-            throw new NotFoundException("Event with id=" + eventId + " not found");
-        }
-
-        Long likes = ratingRepository.countLikesByEventId(eventId);
-        Long dislikes = ratingRepository.countDislikesByEventId(eventId);
-        Event event = eventRepository.findById(eventId).orElseThrow();
+        Event event = getEventByIdOrThrow(eventId);
+        long likes = event.getLikes() + ratingCounterStore.pendingLikes(eventId);
+        long dislikes = event.getDislikes() + ratingCounterStore.pendingDislikes(eventId);
 
         return new RatingStatsDto(
                 eventId,
@@ -124,50 +137,38 @@ public class RatingServiceImpl implements RatingService {
     }
 
     @Override
-    public List<RatingStatsDto> getTopRatedEvents(Integer from, Integer size) {
+    public List<RatingStatsDto> getTopRatedEvents(Integer from, Integer size, String sort) {
         validatePaginationParams(from, size);
         Pageable pageable = PageRequest.of(from / size, size);
 
-        List<RatingStatsDto> allStats = ratingRepository.getEventsRatingStats();
-        return allStats.stream()
-                .skip(from)
-                .limit(size)
-                .collect(Collectors.toList());
+        // Порядок — по сохранённым счётчикам, значения на странице — с учётом ещё не сохранённых оценок
+        List<RatingStatsDto> page;
+        if ("RATING".equals(sort)) {
+            page = eventRepository.findTopRated(pageable);
+        } else if ("HOT".equals(sort)) {
+            page = eventRepository.findHot(pageable);
+        } else {
+            throw new ValidationException("Unknown sort: " + sort);
+        }
+        page.forEach(stats -> {
+            stats.setLikes(stats.getLikes() + ratingCounterStore.pendingLikes(stats.getEventId()));
+            stats.setDislikes(stats.getDislikes() + ratingCounterStore.pendingDislikes(stats.getEventId()));
+            stats.setRating(stats.getLikes() - stats.getDislikes());
+        });
+        return page;
     }
 
     @Override
     public List<RatingStatsDto> getTopRatedUsers(Integer from, Integer size) {
         validatePaginationParams(from, size);
+        Pageable pageable = PageRequest.of(from / size, size);
 
-        // Получаем всех пользователей, у которых есть события
-        List<User> usersWithEvents = userRepository.findAll().stream()
-                .filter(user -> !eventRepository.findByInitiatorId(user.getId(), PageRequest.of(0, 1)).isEmpty())
-                .collect(Collectors.toList());
-
-        List<Long> userIds = usersWithEvents.stream()
-                .map(User::getId)
-                .collect(Collectors.toList());
-
-        // Получаем рейтинги пользователей
-        List<Object[]> userRatings = ratingRepository.getRatingsByUserIds(userIds);
-        Map<Long, Long> userRatingMap = userRatings.stream()
-                .collect(Collectors.toMap(
-                        arr -> (Long) arr[0],
-                        arr -> (Long) arr[1]
-                ));
-
-        // Создаем DTO и сортируем по рейтингу
-        return usersWithEvents.stream()
-                .map(user -> {
-                    Long rating = userRatingMap.getOrDefault(user.getId(), 0L);
-                    return new RatingStatsDto(
-                            null, null, user.getId(), user.getName(),
-                            null, null, rating
-                    );
-                })
-                .sorted((a, b) -> Long.compare(b.getRating(), a.getRating()))
-                .skip(from)
-                .limit(size)
+        // Репутация учитывает оценки после сохранения счётчиков RatingCounterStore
+        return userRepository.findTopByReputation(pageable).stream()
+                .map(row -> new RatingStatsDto(
+                        null, null, ((Number) row[0]).longValue(), (String) row[1],
+                        null, null, ((Number) row[2]).longValue()
+                ))
                 .collect(Collectors.toList());
     }
 
@@ -179,6 +180,11 @@ public class RatingServiceImpl implements RatingService {
         return EventRatingMapper.toEventRatingDto(rating, formatter);
     }
 
+    // Счётчики события обновит RatingCounterStore после коммита оценки
+    private void incrementRatingCounters(Long eventId, long likes, long dislikes) {
+        eventPublisher.publishEvent(EventActivity.rating(eventId, likes, dislikes));
+    }
+
     private User getUserByIdOrThrow(Long userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("User with id=" + userId + " not found"));
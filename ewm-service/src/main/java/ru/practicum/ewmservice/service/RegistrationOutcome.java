@@ -0,0 +1,17 @@
+package ru.practicum.ewmservice.service;
+
+import ru.practicum.ewmservice.dto.ParticipationRequestDto;
+
+/**
+ * Результат заявки из пакетной регистрации: созданная заявка либо причина отказа.
+ */
+public record RegistrationOutcome(ParticipationRequestDto request, String error) {
+
+    public static RegistrationOutcome accepted(ParticipationRequestDto request) {
+        return new RegistrationOutcome(request, null);
+    }
+
+    public static RegistrationOutcome rejected(String error) {
+        return new RegistrationOutcome(null, error);
+    }
+}
@@ -0,0 +1,259 @@
+package ru.practicum.ewmservice.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.ewmservice.dto.RegistrationTicketDto;
+import ru.practicum.ewmservice.exception.ConflictException;
+import ru.practicum.ewmservice.exception.NotFoundException;
+import ru.practicum.ewmservice.exception.TooManyRequestsException;
+import ru.practicum.ewmservice.model.EventState;
+import ru.practicum.ewmservice.model.RegistrationStatus;
+import ru.practicum.ewmservice.repository.EventRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Очередь заявок на события с ажиотажным спросом (highDemand). Заявка не создаётся в запросе пользователя,
+ * а ставится в очередь; пользователь получает билет и опрашивает его статус.
+ * <p>
+ * События распределены по партициям по id, у каждой партиции своя очередь и один поток, поэтому заявки
+ * на событие обрабатываются по порядку поступления. Поток забирает из очереди до batchSize заявок и создаёт
+ * заявки каждого события одним INSERT, вместо тысяч параллельных транзакций за строку события.
+ * <p>
+ * Потоки запускаются, когда приложение готово, а не при создании бина. При остановке очередь перестаёт
+ * принимать заявки, потоки дорабатывают уже поставленные в течение shutdownTimeout, а оставшиеся после этого
+ * заявки отклоняются. Очередь и билеты хранятся в памяти экземпляра, завершённые билеты удаляются через ticketTtl.
+ */
+@Slf4j
+@Component
+public class RegistrationQueue {
+
+    private static final String STOPPED = "Registration queue stopped";
+    // Как часто простаивающий поток проверяет, не остановлен ли приём заявок
+    private static final long POLL_INTERVAL_MS = 200;
+
+    private final ParticipationRequestService requestService;
+    private final EventRepository eventRepository;
+    private final int batchSize;
+    private final Duration ticketTtl;
+    private final Duration shutdownTimeout;
+
+    private final List<BlockingQueue<Entry>> partitions = new ArrayList<>();
+    private final ExecutorService workers;
+    private final Set<Long> highDemandEvents = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Ticket> tickets = new ConcurrentHashMap<>();
+    // Заявка пользователя на событие -> билет, пока она в очереди; повторная заявка получает тот же билет
+    private final Map<Key, UUID> queued = new ConcurrentHashMap<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean accepting = true;
+
+    public RegistrationQueue(ParticipationRequestService requestService,
+                             EventRepository eventRepository,
+                             @Value("${ewm.registration.queue.partitions:4}") int partitions,
+                             @Value("${ewm.registration.queue.batch-size:500}") int batchSize,
+                             @Value("${ewm.registration.queue.capacity:10000}") int capacity,
+                             @Value("${ewm.registration.queue.ticket-ttl:PT10M}") Duration ticketTtl,
+                             @Value("${ewm.registration.queue.shutdown-timeout:PT10S}") Duration shutdownTimeout) {
+        this.requestService = requestService;
+        this.eventRepository = eventRepository;
+        this.batchSize = batchSize;
+        this.ticketTtl = ticketTtl;
+        this.shutdownTimeout = shutdownTimeout;
+        AtomicInteger number = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(partitions,
+                runnable -> new Thread(runnable, "registration-queue-" + number.getAndIncrement()));
+        for (int i = 0; i < partitions; i++) {
+            this.partitions.add(new LinkedBlockingQueue<>(capacity));
+        }
+    }
+
+    public boolean isHighDemand(Long eventId) {
+        return highDemandEvents.contains(eventId);
+    }
+
+    /**
+     * Ставит заявку в очередь события и возвращает билет; если заявка пользователя уже ждёт в очереди —
+     * её билет.
+     */
+    public RegistrationTicketDto submit(Long userId, Long eventId) {
+        if (!accepting) {
+            throw new TooManyRequestsException("Registration queue is shutting down");
+        }
+        Key key = new Key(eventId, userId);
+        UUID id = UUID.randomUUID();
+        RegistrationTicketDto ticket = new RegistrationTicketDto(id, eventId, userId, RegistrationStatus.QUEUED,
+                null, null);
+        tickets.put(id, new Ticket(ticket, Long.MAX_VALUE));
+        UUID existing = queued.putIfAbsent(key, id);
+        if (existing != null) {
+            tickets.remove(id);
+            return tickets.get(existing).ticket();
+        }
+
+        BlockingQueue<Entry> queue = partition(eventId);
+        Entry entry = new Entry(id, eventId, userId);
+        if (!queue.offer(entry)) {
+            queued.remove(key, id);
+            tickets.remove(id);
+            throw new TooManyRequestsException("Registration queue for event=" + eventId + " is full");
+        }
+        // Остановка началась во время постановки: заявку, которую ещё не забрал поток, забираем обратно
+        if (!accepting && queue.remove(entry)) {
+            queued.remove(key, id);
+            tickets.remove(id);
+            throw new TooManyRequestsException("Registration queue is shutting down");
+        }
+        return ticket;
+    }
+
+    public RegistrationTicketDto getTicket(Long userId, UUID ticketId) {
+        Ticket ticket = tickets.get(ticketId);
+        if (ticket == null || !ticket.ticket().getRequester().equals(userId)) {
+            throw new NotFoundException("Ticket with id=" + ticketId + " not found");
+        }
+        return ticket.ticket();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEventChange(EventChange change) {
+        if (change.state() == EventState.PUBLISHED && change.highDemand()) {
+            highDemandEvents.add(change.id());
+        } else {
+            highDemandEvents.remove(change.id());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (started.compareAndSet(false, true)) {
+            partitions.forEach(queue -> workers.execute(() -> drain(queue)));
+        }
+        try {
+            List<Long> ids = eventRepository.findHighDemandIds();
+            highDemandEvents.addAll(ids);
+            log.info("Registration queue enabled for {} high-demand events", ids.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to load high-demand events: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ewm.registration.queue.ticket-ttl:PT10M}")
+    public void expireTickets() {
+        long now = System.currentTimeMillis();
+        tickets.values().removeIf(ticket -> ticket.expiresAt() < now);
+    }
+
+    /**
+     * Перестаёт принимать заявки и ждёт, пока потоки обработают поставленные; не обработанные за shutdownTimeout
+     * заявки отклоняются.
+     */
+    @PreDestroy
+    public void shutdown() {
+        accepting = false;
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+                workers.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        List<Entry> remaining = new ArrayList<>();
+        partitions.forEach(queue -> queue.drainTo(remaining));
+        if (!remaining.isEmpty()) {
+            log.warn("Registration queue stopped, {} queued requests rejected", remaining.size());
+            remaining.stream()
+                    .collect(Collectors.groupingBy(Entry::eventId, LinkedHashMap::new, Collectors.toList()))
+                    .forEach((eventId, entries) -> complete(eventId, entries,
+                            Collections.nCopies(entries.size(), RegistrationOutcome.rejected(STOPPED))));
+        }
+    }
+
+    private BlockingQueue<Entry> partition(Long eventId) {
+        return partitions.get((int) Math.floorMod(eventId, (long) partitions.size()));
+    }
+
+    // После остановки приёма поток дорабатывает очередь до конца и завершается
+    private void drain(BlockingQueue<Entry> queue) {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted() && (accepting || !queue.isEmpty())) {
+            try {
+                Entry first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            batch.stream()
+                    .collect(Collectors.groupingBy(Entry::eventId, LinkedHashMap::new, Collectors.toList()))
+                    .forEach(this::register);
+            batch.clear();
+        }
+    }
+
+    private void register(Long eventId, List<Entry> entries) {
+        List<RegistrationOutcome> outcomes;
+        try {
+            outcomes = requestService.createRequests(eventId, entries.stream().map(Entry::userId).toList());
+        } catch (ConflictException | NotFoundException e) {
+            outcomes = Collections.nCopies(entries.size(), RegistrationOutcome.rejected(e.getMessage()));
+        } catch (RuntimeException e) {
+            log.error("Failed to register {} requests for event {}: {}", entries.size(), eventId, e.getMessage(), e);
+            outcomes = Collections.nCopies(entries.size(), RegistrationOutcome.rejected("Registration failed"));
+        }
+        complete(eventId, entries, outcomes);
+    }
+
+    private void complete(Long eventId, List<Entry> entries, List<RegistrationOutcome> outcomes) {
+        long expiresAt = System.currentTimeMillis() + ticketTtl.toMillis();
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            RegistrationOutcome outcome = outcomes.get(i);
+            RegistrationTicketDto ticket = new RegistrationTicketDto(entry.id(), eventId, entry.userId(),
+                    outcome.request() != null ? RegistrationStatus.ACCEPTED : RegistrationStatus.REJECTED,
+                    outcome.request(), outcome.error());
+            // Билет завершается раньше, чем снимается отметка об очереди: повторная заявка всегда найдёт билет
+            tickets.put(entry.id(), new Ticket(ticket, expiresAt));
+            queued.remove(new Key(eventId, entry.userId()), entry.id());
+        }
+    }
+
+    private record Entry(UUID id, Long eventId, Long userId) {
+    }
+
+    private record Key(Long eventId, Long userId) {
+    }
+
+    private record Ticket(RegistrationTicketDto ticket, long expiresAt) {
+    }
+}
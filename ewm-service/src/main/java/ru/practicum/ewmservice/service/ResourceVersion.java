@@ -0,0 +1,46 @@
+package ru.practicum.ewmservice.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Значение ETag ресурса и время его изменения (-1, если неизвестно) для условных GET-запросов.
+ */
+public record ResourceVersion(String etag, long lastModified) {
+
+    public static ResourceVersion of(String etag) {
+        return new ResourceVersion(etag, -1);
+    }
+
+    /**
+     * Версия из первой строки (хеш, время изменения) нативного запроса; пусто, если ресурса нет.
+     */
+    public static Optional<ResourceVersion> fromRows(String prefix, List<Object[]> rows) {
+        if (rows.isEmpty() || rows.get(0)[0] == null) {
+            return Optional.empty();
+        }
+        Object[] row = rows.get(0);
+        return Optional.of(of(prefix + row[0], row.length > 1 ? row[1] : null));
+    }
+
+    /**
+     * Слабый ETag (W/"...") для ответов с просмотрами из stats-server и ещё не сохранёнными оценками:
+     * при той же версии строк тело может отличаться, поэтому побайтное совпадение не обещается.
+     */
+    public ResourceVersion weak() {
+        return new ResourceVersion("W/\"" + etag + "\"", lastModified);
+    }
+
+    public static ResourceVersion of(String etag, Object updatedOn) {
+        if (updatedOn instanceof LocalDateTime dateTime) {
+            return new ResourceVersion(etag, dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        if (updatedOn instanceof Date date) {
+            return new ResourceVersion(etag, date.getTime());
+        }
+        return of(etag);
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.ewmservice.service;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import ru.practicum.dto.EndpointHit;
 import ru.practicum.dto.ViewStats;
@@ -10,13 +11,18 @@ import ru.practicum.statsclient.StatsClient;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class StatsIntegrationService {
     private final StatsClient statsClient;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ViewDeduplicator viewDeduplicator;
 
     public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
         try {
@@ -33,11 +39,12 @@ public class StatsIntegrationService {
     }
 
     public void saveHit(HttpServletRequest request) {
+        String ip = getClientIp(request);
         try {
             EndpointHit hit = new EndpointHit();
             hit.setApp("ewm-main-service");
             hit.setUri(request.getRequestURI());
-            hit.setIp(getClientIp(request));
+            hit.setIp(ip);
             hit.setTimestamp(LocalDateTime.now());
 
             log.debug("Saving hit: {}", hit);
@@ -46,27 +53,51 @@ public class StatsIntegrationService {
         } catch (Exception e) {
             log.error("Failed to save hit to stats service: {}", e.getMessage(), e);
         }
+
+        // Просмотр учитывается в трендах и тогда, когда сервис статистики недоступен, но, как и уникальные
+        // просмотры в статистике, только один раз на IP за окно
+        Long eventId = extractEventIdFromUri(request.getRequestURI());
+        if (eventId != null && viewDeduplicator.isNewView(eventId, ip)) {
+            eventPublisher.publishEvent(EventActivity.view(eventId));
+        }
     }
 
-    public Long getEventViews(Long eventId) {
-        try {
-            String uri = "/events/" + eventId;
-            LocalDateTime start = LocalDateTime.now().minusYears(1);
-            LocalDateTime end = LocalDateTime.now().plusHours(1);
+    public Map<Long, Long> getEventsViews(List<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        List<String> uris = eventIds.stream()
+                .map(eventId -> "/events/" + eventId)
+                .collect(Collectors.toList());
 
-            log.debug("Getting views for event {} with uri: {}", eventId, uri);
+        LocalDateTime start = LocalDateTime.now().minusYears(1);
+        LocalDateTime end = LocalDateTime.now().plusYears(1);
 
-            List<ViewStats> stats = getStats(start, end, List.of(uri), true);
-            log.debug("Stats for event {}: {}", eventId, stats);
+        log.debug("Getting views for events: uris={}", uris);
+        List<ViewStats> stats = getStats(start, end, uris, true);
 
-            if (stats == null || stats.isEmpty()) {
-                return 0L;
+        Map<Long, Long> views = new HashMap<>();
+        if (stats == null) {
+            return views;
+        }
+        for (ViewStats stat : stats) {
+            Long eventId = extractEventIdFromUri(stat.getUri());
+            if (eventId != null) {
+                views.put(eventId, stat.getHits());
             }
+        }
+        log.debug("Received views for {} of {} events", views.size(), eventIds.size());
 
-            return stats.get(0).getHits();
-        } catch (Exception e) {
-            log.error("Failed to get views for event {}: {}", eventId, e.getMessage(), e);
-            return 0L;
+        return views;
+    }
+
+    private Long extractEventIdFromUri(String uri) {
+        try {
+            String[] parts = uri.split("/");
+            return Long.parseLong(parts[parts.length - 1]);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return null;
         }
     }
 
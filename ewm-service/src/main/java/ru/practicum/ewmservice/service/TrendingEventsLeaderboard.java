@@ -0,0 +1,343 @@
+package ru.practicum.ewmservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.ewmservice.model.EventState;
+import ru.practicum.ewmservice.repository.EventRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory рейтинг трендовых опубликованных событий: взвешенная сумма просмотров, оценок
+ * и подтверждённых заявок с экспоненциальным затуханием по времени.
+ * <p>
+ * Используется прямое затухание: вклад активности в момент t хранится как weight * e^(λ(t - landmark)),
+ * поэтому счета не нужно пересчитывать со временем — их порядок не меняется. Когда множитель становится
+ * слишком большим, счета и landmark нормируются. По каждой категории держатся topK лучших событий и столько же
+ * следующих за ними в запасе: событие, упавшее ниже запаса, просто выбывает, и категория пересобирается полным
+ * проходом, только когда запас исчерпан. Общий топ собирается слиянием топов категорий.
+ * <p>
+ * Счета периодически сохраняются в event_trending и загружаются при старте.
+ */
+@Slf4j
+@Component
+public class TrendingEventsLeaderboard {
+
+    private static final double VIEW_WEIGHT = 1;
+    private static final double LIKE_WEIGHT = 5;
+    private static final double DISLIKE_WEIGHT = -5;
+    private static final double CONFIRMED_REQUEST_WEIGHT = 10;
+    // Показатель e^x, после которого счета нормируются, чтобы не терять точность double
+    private static final double MAX_EXPONENT = 50;
+    // Счета меньше этого (в единицах просмотров) не сохраняются
+    private static final double MIN_PERSISTED_SCORE = 0.01;
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private static final Comparator<Item> BY_SCORE = Comparator.comparingDouble((Item item) -> item.score)
+            .reversed()
+            .thenComparing(item -> item.eventId);
+
+    private final EventRepository eventRepository;
+    private final double lambda;
+    private final int topK;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Item> items = new HashMap<>();
+    private final Map<Long, CategoryTop> topByCategory = new HashMap<>();
+    private long landmark = nowSeconds();
+    // Пока снимок не загружен, сохранять нечего: иначе сохранённые счета затёрлись бы пустыми
+    private volatile boolean loaded;
+
+    public TrendingEventsLeaderboard(EventRepository eventRepository,
+                                     @Value("${ewm.trending.half-life:PT24H}") Duration halfLife,
+                                     @Value("${ewm.trending.top-k:100}") int topK) {
+        this.eventRepository = eventRepository;
+        this.lambda = Math.log(2) / halfLife.toSeconds();
+        this.topK = topK;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    /**
+     * id трендовых событий с датой проведения в будущем, по убыванию счёта; categories null — все категории.
+     */
+    public List<Long> getTop(List<Long> categories, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Item> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (categories == null || categories.isEmpty()) {
+                topByCategory.values().forEach(top -> top.addLeaders(candidates));
+            } else {
+                categories.stream()
+                        .distinct()
+                        .map(topByCategory::get)
+                        .filter(Objects::nonNull)
+                        .forEach(top -> top.addLeaders(candidates));
+            }
+            return candidates.stream()
+                    .filter(item -> item.eventDate.isAfter(now))
+                    .sorted(BY_SCORE)
+                    .limit(limit)
+                    .map(item -> item.eventId)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEventActivity(EventActivity activity) {
+        double weight = activity.views() * VIEW_WEIGHT
+                + activity.likes() * LIKE_WEIGHT
+                + activity.dislikes() * DISLIKE_WEIGHT
+                + activity.confirmedRequests() * CONFIRMED_REQUEST_WEIGHT;
+        if (weight == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Item item = items.get(activity.eventId());
+            // Активность по неопубликованным и неизвестным событиям в рейтинг не попадает
+            if (item != null) {
+                changeScore(item, weight * Math.exp(lambda * (nowSeconds() - landmark)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEventChange(EventChange change) {
+        lock.writeLock().lock();
+        try {
+            Item item = items.get(change.id());
+            if (change.state() != EventState.PUBLISHED) {
+                if (item != null) {
+                    items.remove(change.id());
+                    leaveTop(item);
+                }
+                return;
+            }
+            if (item == null) {
+                items.put(change.id(), new Item(change.id(), change.categoryId(), change.eventDate(), 0));
+                return;
+            }
+            leaveTop(item);
+            item.categoryId = change.categoryId();
+            item.eventDate = change.eventDate();
+            offer(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.error("Failed to load trending events: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Нормирует счета, убирает прошедшие события и сохраняет снимок счетов в БД.
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${ewm.trending.persist-delay:PT1M}",
+            initialDelayString = "${ewm.trending.persist-delay:PT1M}")
+    public void persist() {
+        if (!loaded) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            long nowSeconds = nowSeconds();
+            double exponent = lambda * (nowSeconds - landmark);
+            if (exponent > MAX_EXPONENT) {
+                double factor = Math.exp(-exponent);
+                items.values().forEach(item -> item.score *= factor);
+                landmark = nowSeconds;
+                exponent = 0;
+            }
+            items.values().removeIf(item -> item.eventDate.isBefore(now));
+            rebuildTop();
+            // В БД хранится счёт на текущий момент, не зависящий от landmark
+            double scale = Math.exp(-exponent);
+            for (Item item : items.values()) {
+                double score = item.score * scale;
+                if (Math.abs(score) >= MIN_PERSISTED_SCORE) {
+                    ids.add(item.eventId);
+                    scores.add(score);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Long[] idArray = ids.toArray(new Long[0]);
+        eventRepository.saveTrendingScores(idArray, scores.toArray(new Double[0]), now);
+        int deleted = eventRepository.deleteTrendingScoresExcept(idArray);
+        log.debug("Persisted {} trending scores, removed {}", ids.size(), deleted);
+    }
+
+    private void load() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Item> published = new HashMap<>();
+        long afterId = 0L;
+        List<Object[]> batch;
+        do {
+            batch = eventRepository.findPublishedForIndexAfter(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (Object[] row : batch) {
+                LocalDateTime eventDate = (LocalDateTime) row[5];
+                if (eventDate.isAfter(now)) {
+                    published.put((Long) row[0], new Item((Long) row[0], (Long) row[3], eventDate, 0));
+                }
+            }
+            if (!batch.isEmpty()) {
+                afterId = (Long) batch.get(batch.size() - 1)[0];
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        List<Object[]> saved = eventRepository.findTrendingScores();
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : saved) {
+                Item item = published.get(((Number) row[0]).longValue());
+                if (item != null) {
+                    // Счёт на момент scored_at переводится в шкалу текущего landmark
+                    long scoredAt = toEpochSeconds(row[2]);
+                    item.score = ((Number) row[1]).doubleValue() * Math.exp(lambda * (scoredAt - landmark));
+                }
+            }
+            // События, опубликованные или получившие активность во время загрузки, уже есть в рейтинге
+            published.forEach(items::putIfAbsent);
+            rebuildTop();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        this.loaded = true;
+        log.info("Trending leaderboard loaded with {} events, {} saved scores", published.size(), saved.size());
+    }
+
+    private void changeScore(Item item, double delta) {
+        CategoryTop top = topByCategory.get(item.categoryId);
+        if (top == null || !top.items.remove(item)) {
+            item.score += delta;
+            offer(item);
+            return;
+        }
+        item.score += delta;
+        // Событие, упавшее ниже запаса, выбывает: за ним могут быть события, не попавшие в запас
+        if (delta >= 0 || top.complete || BY_SCORE.compare(item, top.items.last()) < 0) {
+            offer(item);
+        }
+        refillIfExhausted(item.categoryId);
+    }
+
+    private void offer(Item item) {
+        if (item.score <= 0) {
+            return;
+        }
+        CategoryTop top = topByCategory.computeIfAbsent(item.categoryId, id -> new CategoryTop());
+        if (!top.complete && !top.items.isEmpty() && BY_SCORE.compare(item, top.items.last()) > 0) {
+            return;
+        }
+        top.items.add(item);
+        if (top.items.size() > topK * 2) {
+            top.items.pollLast();
+            top.complete = false;
+        }
+    }
+
+    private void leaveTop(Item item) {
+        CategoryTop top = topByCategory.get(item.categoryId);
+        if (top != null && top.items.remove(item)) {
+            refillIfExhausted(item.categoryId);
+        }
+    }
+
+    private void refillIfExhausted(Long categoryId) {
+        CategoryTop top = topByCategory.get(categoryId);
+        if (top != null && !top.complete && top.items.size() < topK) {
+            rebuildTop(categoryId);
+        }
+    }
+
+    private void rebuildTop(Long categoryId) {
+        topByCategory.put(categoryId, new CategoryTop());
+        items.values().stream()
+                .filter(item -> item.categoryId.equals(categoryId))
+                .forEach(this::offer);
+    }
+
+    private void rebuildTop() {
+        topByCategory.clear();
+        items.values().forEach(this::offer);
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static long toEpochSeconds(Object timestamp) {
+        if (timestamp instanceof Date date) {
+            return date.getTime() / 1000;
+        }
+        return ((LocalDateTime) timestamp).atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    /**
+     * Лучшие события категории: все события с положительным счётом, не попавшие сюда, идут после последнего.
+     * complete — сюда попали все события категории с положительным счётом.
+     */
+    private final class CategoryTop {
+        private final TreeSet<Item> items = new TreeSet<>(BY_SCORE);
+        private boolean complete = true;
+
+        private void addLeaders(List<Item> candidates) {
+            items.stream()
+                    .limit(topK)
+                    .forEach(candidates::add);
+        }
+    }
+
+    private static class Item {
+        private final Long eventId;
+        private Long categoryId;
+        private LocalDateTime eventDate;
+        private double score;
+
+        private Item(Long eventId, Long categoryId, LocalDateTime eventDate, double score) {
+            this.eventId = eventId;
+            this.categoryId = categoryId;
+            this.eventDate = eventDate;
+            this.score = score;
+        }
+    }
+}
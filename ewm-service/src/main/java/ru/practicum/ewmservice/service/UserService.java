@@ -9,5 +9,5 @@ public interface UserService {
 
     void deleteUser(Long userId);
 
-    List<UserDto> getUsers(List<Long> ids, Integer from, Integer size);
+    CursorPage<UserDto> getUsers(List<Long> ids, Integer from, Integer size, String after);
 }
\ No newline at end of file
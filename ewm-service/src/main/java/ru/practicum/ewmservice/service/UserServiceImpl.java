@@ -1,8 +1,8 @@
 package ru.practicum.ewmservice.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewmservice.dto.UserDto;
@@ -10,8 +10,8 @@ import ru.practicum.ewmservice.exception.ConflictException;
 import ru.practicum.ewmservice.exception.NotFoundException;
 import ru.practicum.ewmservice.mapper.UserMapper;
 import ru.practicum.ewmservice.model.User;
-import ru.practicum.ewmservice.repository.EventRatingRepository;
 import ru.practicum.ewmservice.repository.UserRepository;
+import ru.practicum.ewmservice.repository.UserSpecifications;
 
 import java.util.List;
 import java.util.Map;
@@ -23,7 +23,6 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
-    private final EventRatingRepository ratingRepository;
 
     @Override
     @Transactional
@@ -50,16 +49,17 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<UserDto> getUsers(List<Long> ids, Integer from, Integer size) {
-        Pageable pageable = PageRequest.of(from / size, size);
-        List<User> users;
+    public CursorPage<UserDto> getUsers(List<Long> ids, Integer from, Integer size, String after) {
+        Sort sorting = Sort.by("id").ascending();
+        Window<User> window = userRepository.findBy(UserSpecifications.hasIds(ids), query -> query
+                .sortBy(sorting)
+                .limit(size)
+                .scroll(PageCursor.position(after, from, size, sorting)));
 
-        if (ids == null || ids.isEmpty()) {
-            users = userRepository.findAll(pageable).getContent();
-        } else {
-            users = userRepository.findByIdIn(ids, pageable);
-        }
+        return CursorPage.of(window, sorting, this::toUserDtos);
+    }
 
+    private List<UserDto> toUserDtos(List<User> users) {
         Map<Long, Long> userRatings = getUsersRatings(users);
 
         return users.stream()
@@ -72,15 +72,18 @@ public class UserServiceImpl implements UserService {
     }
 
     private Map<Long, Long> getUsersRatings(List<User> users) {
+        if (users.isEmpty()) {
+            return Map.of();
+        }
         List<Long> userIds = users.stream()
                 .map(User::getId)
                 .collect(Collectors.toList());
 
-        List<Object[]> userRatings = ratingRepository.getRatingsByUserIds(userIds);
+        List<Object[]> userRatings = userRepository.findReputations(userIds);
         return userRatings.stream()
                 .collect(Collectors.toMap(
                         arr -> (Long) arr[0],
-                        arr -> (Long) arr[1]
+                        arr -> ((Number) arr[1]).longValue()
                 ));
     }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package ru.practicum.ewmservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Отсеивает повторные просмотры события с одного IP в пределах окна, чтобы обновления страницы
+ * и ответы 304 не накручивали тренды. Помнит ограниченное число последних пар (событие, IP).
+ */
+@Component
+public class ViewDeduplicator {
+
+    private final long windowNanos;
+    private final Map<Key, Long> lastViews;
+
+    public ViewDeduplicator(@Value("${ewm.trending.view-window:PT1H}") Duration window,
+                            @Value("${ewm.trending.view-window-size:100000}") int windowSize) {
+        this.windowNanos = window.toNanos();
+        this.lastViews = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+                return size() > windowSize;
+            }
+        };
+    }
+
+    /**
+     * true, если это первый просмотр события с этого IP за окно.
+     */
+    public synchronized boolean isNewView(Long eventId, String ip) {
+        long now = System.nanoTime();
+        Long last = lastViews.get(new Key(eventId, ip));
+        if (last != null && now - last < windowNanos) {
+            return false;
+        }
+        lastViews.put(new Key(eventId, ip), now);
+        return true;
+    }
+
+    private record Key(Long eventId, String ip) {
+    }
+}
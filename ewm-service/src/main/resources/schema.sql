@@ -9,9 +9,13 @@ CREATE TABLE IF NOT EXISTS users (
 CREATE TABLE IF NOT EXISTS categories (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     name VARCHAR(50) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_on TIMESTAMP WITHOUT TIME ZONE,
     CONSTRAINT pk_category PRIMARY KEY (id),
     CONSTRAINT UQ_CATEGORY_NAME UNIQUE (name)
 );
+ALTER TABLE categories ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE categories ADD COLUMN IF NOT EXISTS updated_on TIMESTAMP WITHOUT TIME ZONE;
 
 CREATE TABLE IF NOT EXISTS events (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
@@ -29,11 +33,60 @@ CREATE TABLE IF NOT EXISTS events (
     paid BOOLEAN NOT NULL DEFAULT FALSE,
     participant_limit INTEGER NOT NULL DEFAULT 0,
     request_moderation BOOLEAN NOT NULL DEFAULT TRUE,
+    high_demand BOOLEAN NOT NULL DEFAULT FALSE,
+    confirmed_requests BIGINT NOT NULL DEFAULT 0,
+    likes BIGINT NOT NULL DEFAULT 0,
+    dislikes BIGINT NOT NULL DEFAULT 0,
+    views BIGINT NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_on TIMESTAMP WITHOUT TIME ZONE,
+    rating BIGINT GENERATED ALWAYS AS (likes - dislikes) STORED,
+    hot_score DOUBLE PRECISION GENERATED ALWAYS AS (
+        SIGN(likes - dislikes)::DOUBLE PRECISION * LOG(1 + ABS(likes - dislikes)::DOUBLE PRECISION)
+            + EXTRACT(EPOCH FROM COALESCE(published_on, created_on))::DOUBLE PRECISION / 45000
+    ) STORED,
+    location_cell INTEGER GENERATED ALWAYS AS (
+        LEAST(FLOOR((location_lat + 90) * 10), 1799)::INTEGER * 3600
+            + LEAST(FLOOR((location_lon + 180) * 10), 3599)::INTEGER
+    ) STORED,
     CONSTRAINT pk_event PRIMARY KEY (id),
     CONSTRAINT fk_event_category FOREIGN KEY (category_id) REFERENCES categories (id),
     CONSTRAINT fk_event_initiator FOREIGN KEY (initiator_id) REFERENCES users (id)
 );
 
+ALTER TABLE events ADD COLUMN IF NOT EXISTS confirmed_requests BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS high_demand BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS likes BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS dislikes BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS views BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS updated_on TIMESTAMP WITHOUT TIME ZONE;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS rating BIGINT GENERATED ALWAYS AS (likes - dislikes) STORED;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS search_vector TSVECTOR GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(annotation, '')), 'B') ||
+    setweight(to_tsvector('simple', coalesce(description, '')), 'C')
+) STORED;
+
+-- «Горячесть»: порядок голосов плюс время публикации; 45000 с (12,5 ч) свежести стоят десятикратного рейтинга,
+-- поэтому относительный порядок событий со временем не меняется и пересчитывать счёт не нужно
+ALTER TABLE events ADD COLUMN IF NOT EXISTS hot_score DOUBLE PRECISION GENERATED ALWAYS AS (
+    SIGN(likes - dislikes)::DOUBLE PRECISION * LOG(1 + ABS(likes - dislikes)::DOUBLE PRECISION)
+        + EXTRACT(EPOCH FROM COALESCE(published_on, created_on))::DOUBLE PRECISION / 45000
+) STORED;
+
+ALTER TABLE events ADD COLUMN IF NOT EXISTS location_cell INTEGER GENERATED ALWAYS AS (
+    LEAST(FLOOR((location_lat + 90) * 10), 1799)::INTEGER * 3600
+        + LEAST(FLOOR((location_lon + 180) * 10), 3599)::INTEGER
+) STORED;
+
+CREATE INDEX IF NOT EXISTS ix_events_search_vector ON events USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS ix_events_state_views ON events (state, views DESC, id);
+CREATE INDEX IF NOT EXISTS ix_events_state_rating ON events (state, rating DESC, id);
+CREATE INDEX IF NOT EXISTS ix_events_state_hot ON events (state, hot_score DESC, id);
+CREATE INDEX IF NOT EXISTS ix_events_state_location_cell ON events (state, location_cell);
+CREATE INDEX IF NOT EXISTS ix_events_initiator ON events (initiator_id);
+
 CREATE TABLE IF NOT EXISTS participation_requests (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     event_id BIGINT NOT NULL,
@@ -50,8 +103,12 @@ CREATE TABLE IF NOT EXISTS compilations (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     title VARCHAR(50) NOT NULL,
     pinned BOOLEAN NOT NULL DEFAULT FALSE,
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_on TIMESTAMP WITHOUT TIME ZONE,
     CONSTRAINT pk_compilation PRIMARY KEY (id)
 );
+ALTER TABLE compilations ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE compilations ADD COLUMN IF NOT EXISTS updated_on TIMESTAMP WITHOUT TIME ZONE;
 
 CREATE TABLE IF NOT EXISTS compilation_events (
     compilation_id BIGINT NOT NULL,
@@ -71,4 +128,20 @@ CREATE TABLE IF NOT EXISTS event_ratings (
     CONSTRAINT fk_rating_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE,
     CONSTRAINT fk_rating_event FOREIGN KEY (event_id) REFERENCES events (id) ON DELETE CASCADE,
     CONSTRAINT UQ_RATING_USER_EVENT UNIQUE (user_id, event_id)
-);
\ No newline at end of file
+);
+-- Снимок рейтинга трендовых событий: счёт на момент scored_at, нужен для тёплого старта
+CREATE TABLE IF NOT EXISTS event_trending (
+    event_id BIGINT NOT NULL,
+    score DOUBLE PRECISION NOT NULL,
+    scored_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_event_trending PRIMARY KEY (event_id),
+    CONSTRAINT fk_trending_event FOREIGN KEY (event_id) REFERENCES events (id) ON DELETE CASCADE
+);
+-- Репутация инициаторов: сумма рейтингов их событий. Строка появляется с первым событием пользователя
+CREATE TABLE IF NOT EXISTS user_reputation (
+    user_id BIGINT NOT NULL,
+    rating BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT pk_user_reputation PRIMARY KEY (user_id),
+    CONSTRAINT fk_reputation_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+CREATE INDEX IF NOT EXISTS ix_user_reputation_rating ON user_reputation (rating DESC, user_id);
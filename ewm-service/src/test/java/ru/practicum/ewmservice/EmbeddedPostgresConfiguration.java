@@ -0,0 +1,45 @@
+package ru.practicum.ewmservice;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+
+/**
+ * PostgreSQL для интеграционных тестов: один встроенный сервер на JVM, схему создаёт schema.sql.
+ * Тесты рассчитаны на PostgreSQL (полнотекстовый поиск, нативные запросы), поэтому H2 не подходит.
+ * <p>
+ * Ожидание блокировки дольше {@link #LOCK_TIMEOUT} завершается ошибкой: тест, в котором запрос долго ждёт
+ * чужую блокировку строки, падает, а не просто проходит медленнее.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class EmbeddedPostgresConfiguration {
+
+    public static final String LOCK_TIMEOUT = "2s";
+
+    private static EmbeddedPostgres postgres;
+
+    private static synchronized EmbeddedPostgres postgres() throws IOException {
+        if (postgres == null) {
+            postgres = EmbeddedPostgres.builder()
+                    .setLocaleConfig("locale", "C.UTF-8")
+                    .setLocaleConfig("encoding", "UTF8")
+                    .start();
+        }
+        return postgres;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource() throws IOException {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setDataSource(postgres().getPostgresDatabase());
+        dataSource.setMaximumPoolSize(20);
+        dataSource.setConnectionInitSql("SET lock_timeout = '" + LOCK_TIMEOUT + "'");
+        return dataSource;
+    }
+}
@@ -0,0 +1,125 @@
+package ru.practicum.ewmservice.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.ewmservice.EmbeddedPostgresConfiguration;
+import ru.practicum.ewmservice.dto.CategoryDto;
+import ru.practicum.ewmservice.dto.CompilationDto;
+import ru.practicum.ewmservice.dto.EventFullDto;
+import ru.practicum.ewmservice.dto.NewCompilationDto;
+import ru.practicum.ewmservice.dto.NewEventDto;
+import ru.practicum.ewmservice.dto.UpdateCompilationRequest;
+import ru.practicum.ewmservice.dto.UpdateEventAdminRequest;
+import ru.practicum.ewmservice.dto.UserDto;
+import ru.practicum.ewmservice.model.Location;
+import ru.practicum.ewmservice.repository.CompilationRepository;
+import ru.practicum.ewmservice.service.CategoryService;
+import ru.practicum.ewmservice.service.CompilationService;
+import ru.practicum.ewmservice.service.EventService;
+import ru.practicum.ewmservice.service.PrivateEventService;
+import ru.practicum.ewmservice.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(EmbeddedPostgresConfiguration.class)
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private PrivateEventService privateEventService;
+    @Autowired
+    private EventService eventService;
+    @Autowired
+    private CompilationService compilationService;
+    @Autowired
+    private CompilationRepository compilationRepository;
+
+    @Test
+    void eventEtagIsWeak() throws Exception {
+        Long eventId = createPublishedEvent("weak-etag");
+
+        String etag = mockMvc.perform(get("/events/" + eventId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(etag).startsWith("W/\"event-" + eventId + "-");
+        mockMvc.perform(get("/events/" + eventId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void categoriesVersionChangesOnEveryWrite() throws Exception {
+        String created = versionAfter(() -> categoryService.createCategory(new CategoryDto(null, "Version created")));
+        Long catId = categoryService.getCategories(0, 1000).stream()
+                .filter(category -> category.getName().equals("Version created"))
+                .findFirst().orElseThrow().getId();
+        String updated = versionAfter(() -> categoryService.updateCategory(catId, new CategoryDto(catId, "Version updated")));
+        String deleted = versionAfter(() -> categoryService.deleteCategory(catId));
+
+        assertThat(List.of(created, updated, deleted)).doesNotHaveDuplicates();
+        mockMvc.perform(get("/categories").header(HttpHeaders.IF_NONE_MATCH, "\"" + deleted + "\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void compilationsVersionChangesWithEventsAndMembership() {
+        Long first = createPublishedEvent("list-version-1");
+        Long second = createPublishedEvent("list-version-2");
+        CompilationDto compilation = compilationService.createCompilation(
+                new NewCompilationDto("List version", false, List.of(first)));
+        String created = compilationRepository.findListVersion();
+
+        compilationService.updateCompilation(compilation.getId(),
+                new UpdateCompilationRequest(null, null, List.of(second)));
+        String membershipChanged = compilationRepository.findListVersion();
+
+        UpdateEventAdminRequest update = new UpdateEventAdminRequest();
+        update.setTitle("List version event renamed");
+        eventService.updateEventByAdmin(second, update);
+        String eventChanged = compilationRepository.findListVersion();
+
+        assertThat(List.of(created, membershipChanged, eventChanged)).doesNotHaveDuplicates();
+    }
+
+    private String versionAfter(Runnable write) {
+        write.run();
+        return categoryService.getCategoriesVersion().etag();
+    }
+
+    private Long createPublishedEvent(String name) {
+        UserDto user = userService.createUser(UserDto.builder().name(name).email(name + "@example.com").build());
+        CategoryDto category = categoryService.createCategory(new CategoryDto(null, name));
+        NewEventDto newEvent = new NewEventDto();
+        newEvent.setTitle("Conditional get " + name);
+        newEvent.setAnnotation("Conditional get annotation for " + name);
+        newEvent.setDescription("Conditional get description for " + name);
+        newEvent.setCategory(category.getId());
+        newEvent.setEventDate(LocalDateTime.now().plusDays(1));
+        newEvent.setLocation(new Location(55.75f, 37.61f));
+        EventFullDto event = privateEventService.createEvent(user.getId(), newEvent);
+
+        UpdateEventAdminRequest publish = new UpdateEventAdminRequest();
+        publish.setStateAction("PUBLISH_EVENT");
+        eventService.updateEventByAdmin(event.getId(), publish);
+        return event.getId();
+    }
+}
@@ -0,0 +1,183 @@
+package ru.practicum.ewmservice.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.MappingMetamodel;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.ewmservice.EmbeddedPostgresConfiguration;
+import ru.practicum.ewmservice.dto.CategoryDto;
+import ru.practicum.ewmservice.dto.EventFullDto;
+import ru.practicum.ewmservice.dto.NewCompilationDto;
+import ru.practicum.ewmservice.dto.NewEventDto;
+import ru.practicum.ewmservice.dto.UpdateEventAdminRequest;
+import ru.practicum.ewmservice.dto.UserDto;
+import ru.practicum.ewmservice.model.Compilation;
+import ru.practicum.ewmservice.model.Event;
+import ru.practicum.ewmservice.model.Location;
+import ru.practicum.ewmservice.service.CategoryService;
+import ru.practicum.ewmservice.service.CompilationService;
+import ru.practicum.ewmservice.service.EventService;
+import ru.practicum.ewmservice.service.PrivateEventService;
+import ru.practicum.ewmservice.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Число SQL-запросов списочных эндпоинтов не зависит от размера страницы: связи страницы загружаются
+ * пачкой, а не запросом на строку (N+1). Запросы считаются по статистике Hibernate при пустом кеше
+ * второго уровня.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(EmbeddedPostgresConfiguration.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ListEndpointStatementCountTest {
+
+    private static final int SMALL_PAGE = 2;
+    private static final int LARGE_PAGE = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private PrivateEventService privateEventService;
+    @Autowired
+    private EventService eventService;
+    @Autowired
+    private CompilationService compilationService;
+
+    private Long initiatorId;
+
+    @BeforeAll
+    void seed() {
+        List<Long> initiators = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            initiators.add(userService.createUser(UserDto.builder()
+                    .name("Statement count " + i)
+                    .email("statement.count" + i + "@example.com")
+                    .build()).getId());
+        }
+        initiatorId = initiators.get(0);
+        List<Long> categories = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            categories.add(categoryService.createCategory(new CategoryDto(null, "Statement count " + i)).getId());
+        }
+
+        List<Long> events = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            events.add(createPublishedEvent(initiators.get(i % 2 == 0 ? 0 : 1 + i % 3),
+                    categories.get(i % categories.size()), i));
+        }
+        for (int i = 0; i < 3; i++) {
+            compilationService.createCompilation(new NewCompilationDto("Statement count " + i, i == 0,
+                    events.subList(i * 8, i * 8 + 8)));
+        }
+    }
+
+    @Test
+    void publicEventsFromDatabase() throws Exception {
+        assertStatementsIndependentOfPageSize("/events?size=%d", 1);
+    }
+
+    @Test
+    void publicEventsFromSearchIndex() throws Exception {
+        assertStatementsIndependentOfPageSize("/events?text=statement&size=%d", 1);
+    }
+
+    @Test
+    void adminEvents() throws Exception {
+        assertStatementsIndependentOfPageSize("/admin/events?size=%d", 1);
+    }
+
+    @Test
+    void userEvents() throws Exception {
+        assertStatementsIndependentOfPageSize("/users/" + initiatorId + "/events?size=%d", 2);
+    }
+
+    @Test
+    void compilations() throws Exception {
+        // Список подборок отдаётся из снимков в памяти, без запросов к БД
+        assertStatementsIndependentOfPageSize("/compilations?size=%d", 0);
+    }
+
+    @Test
+    void categories() throws Exception {
+        assertStatementsIndependentOfPageSize("/categories?size=%d", 3);
+    }
+
+    @Test
+    void users() throws Exception {
+        assertStatementsIndependentOfPageSize("/admin/users?size=%d", 2);
+    }
+
+    @Test
+    void compilationEventsCollectionIsNotCachedWithoutCachedEvents() {
+        // Из кеша коллекции некешируемые события загружались бы отдельным запросом на каждое
+        MappingMetamodel metamodel = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel();
+        boolean eventsCached = metamodel.getEntityDescriptor(Event.class).canReadFromCache();
+        boolean collectionCached = metamodel.getCollectionDescriptor(Compilation.class.getName() + ".events")
+                .hasCache();
+
+        assertThat(collectionCached).isEqualTo(eventsCached);
+    }
+
+    private void assertStatementsIndependentOfPageSize(String url, long maxStatements) throws Exception {
+        long small = countStatements(url.formatted(SMALL_PAGE));
+        long large = countStatements(url.formatted(LARGE_PAGE));
+
+        // Меньше запросов на большой странице допустимо: Spring Data не считает COUNT для неполной страницы
+        assertThat(large).as("statements for page size %d", LARGE_PAGE).isLessThanOrEqualTo(small);
+        assertThat(large).isLessThanOrEqualTo(maxStatements);
+    }
+
+    private long countStatements(String url) throws Exception {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Long createPublishedEvent(Long initiatorId, Long categoryId, int number) {
+        NewEventDto newEvent = new NewEventDto();
+        newEvent.setTitle("Statement count event " + number);
+        newEvent.setAnnotation("Statement count annotation for event " + number);
+        newEvent.setDescription("Statement count description for event " + number);
+        newEvent.setCategory(categoryId);
+        newEvent.setEventDate(LocalDateTime.now().plusDays(1 + number));
+        newEvent.setLocation(new Location(55.75f + number / 100f, 37.61f));
+        newEvent.setPaid(number % 2 == 0);
+        newEvent.setParticipantLimit(0);
+        EventFullDto event = privateEventService.createEvent(initiatorId, newEvent);
+
+        UpdateEventAdminRequest publish = new UpdateEventAdminRequest();
+        publish.setStateAction("PUBLISH_EVENT");
+        eventService.updateEventByAdmin(event.getId(), publish);
+        return event.getId();
+    }
+}
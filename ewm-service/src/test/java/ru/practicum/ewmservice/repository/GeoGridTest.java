@@ -0,0 +1,94 @@
+package ru.practicum.ewmservice.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GeoGridTest {
+
+    private static final int COLUMNS = 3600;
+
+    private final List<Range> ranges = new ArrayList<>();
+    private CriteriaBuilder cb;
+    private Expression<Integer> cell;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        cb = mock(CriteriaBuilder.class);
+        cell = mock(Expression.class);
+        when(cb.between(eq(cell), anyInt(), anyInt())).thenAnswer(invocation -> {
+            ranges.add(new Range(invocation.getArgument(1), invocation.getArgument(2)));
+            return mock(Predicate.class);
+        });
+    }
+
+    @Test
+    void coversBoxWithRowRangesAndOneCellMargin() {
+        // Строка 1457, столбцы 2175-2176
+        GeoGrid.covering(cb, cell, 55.71, 55.79, 37.51, 37.69);
+
+        assertThat(ranges).containsExactly(
+                new Range(1456 * COLUMNS + 2174, 1456 * COLUMNS + 2177),
+                new Range(1457 * COLUMNS + 2174, 1457 * COLUMNS + 2177),
+                new Range(1458 * COLUMNS + 2174, 1458 * COLUMNS + 2177));
+        verify(cb).or(any(Predicate[].class));
+        assertThat(ranges).anyMatch(range -> range.contains(cellOf(55.75, 37.61)));
+    }
+
+    @Test
+    void splitsColumnsAcrossAntimeridian() {
+        // Строки 1000-1001, столбцы 3595-3599 и 0-4
+        GeoGrid.covering(cb, cell, 10.05, 10.15, 179.55, -179.55);
+
+        assertThat(ranges).hasSize(8);
+        for (int row = 999; row <= 1002; row++) {
+            assertThat(ranges).contains(new Range(row * COLUMNS + 3594, row * COLUMNS + COLUMNS - 1),
+                    new Range(row * COLUMNS, row * COLUMNS + 5));
+        }
+        assertThat(ranges).anyMatch(range -> range.contains(cellOf(10.1, 179.9)));
+        assertThat(ranges).anyMatch(range -> range.contains(cellOf(10.1, -179.9)));
+    }
+
+    @Test
+    void coversTallBoxWithSingleLatitudeBand() {
+        GeoGrid.covering(cb, cell, 10.05, 20.05, 37.51, 37.69);
+
+        assertThat(ranges).containsExactly(new Range(999 * COLUMNS, 1101 * COLUMNS + COLUMNS - 1));
+        verify(cb, never()).or(any(Predicate[].class));
+        assertThat(GeoGrid.bandStart(10.05)).isEqualTo(999 * COLUMNS);
+        assertThat(GeoGrid.bandEnd(20.05)).isEqualTo(1101 * COLUMNS + COLUMNS - 1);
+    }
+
+    @Test
+    void clampsMarginAtGridEdges() {
+        GeoGrid.covering(cb, cell, -90, -89.95, -180, -179.95);
+
+        assertThat(ranges).containsExactly(new Range(0, 1), new Range(COLUMNS, COLUMNS + 1));
+    }
+
+    // Та же формула, что у колонки events.location_cell в schema.sql
+    private static int cellOf(double lat, double lon) {
+        return (int) Math.floor((lat + 90) * 10) * COLUMNS + (int) Math.floor((lon + 180) * 10);
+    }
+
+    private record Range(int from, int to) {
+        boolean contains(int value) {
+            return value >= from && value <= to;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ru.practicum.ewmservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.ewmservice.EmbeddedPostgresConfiguration;
+import ru.practicum.ewmservice.dto.CategoryDto;
+import ru.practicum.ewmservice.dto.NewEventDto;
+import ru.practicum.ewmservice.dto.UserDto;
+import ru.practicum.ewmservice.model.Location;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сверка счётчиков против PostgreSQL: разошедшиеся лайки события и репутация инициатора восстанавливаются.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(EmbeddedPostgresConfiguration.class)
+class EventCountersReconcilerTest {
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private PrivateEventService privateEventService;
+    @Autowired
+    private EventCountersReconciler reconciler;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void repairsDriftedEventCountersAndReputation() {
+        Long initiatorId = userService.createUser(UserDto.builder()
+                .name("reconcile-initiator").email("reconcile-initiator@example.com").build()).getId();
+        Long eventId = createEvent(initiatorId);
+        jdbcTemplate.update("UPDATE events SET likes = 3 WHERE id = ?", eventId);
+        jdbcTemplate.update("UPDATE user_reputation SET rating = 7 WHERE user_id = ?", initiatorId);
+
+        reconciler.reconcile();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT likes FROM events WHERE id = ?", Long.class, eventId))
+                .isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT rating FROM user_reputation WHERE user_id = ?",
+                Long.class, initiatorId)).isZero();
+    }
+
+    @Test
+    void restoresMissingReputationRow() {
+        Long initiatorId = userService.createUser(UserDto.builder()
+                .name("reconcile-missing").email("reconcile-missing@example.com").build()).getId();
+        createEvent(initiatorId);
+        jdbcTemplate.update("DELETE FROM user_reputation WHERE user_id = ?", initiatorId);
+
+        reconciler.reconcile();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_reputation WHERE user_id = ?",
+                Long.class, initiatorId)).isEqualTo(1);
+    }
+
+    private Long createEvent(Long initiatorId) {
+        CategoryDto category = categoryService.createCategory(new CategoryDto(null, "Reconcile " + initiatorId));
+        NewEventDto newEvent = new NewEventDto();
+        newEvent.setTitle("Reconcile test event");
+        newEvent.setAnnotation("Reconcile test event annotation");
+        newEvent.setDescription("Reconcile test event description");
+        newEvent.setCategory(category.getId());
+        newEvent.setEventDate(LocalDateTime.now().plusDays(3));
+        newEvent.setLocation(new Location(55.75f, 37.61f));
+        return privateEventService.createEvent(initiatorId, newEvent).getId();
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.ewmservice.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewmservice.dto.EventShortDto;
+import ru.practicum.ewmservice.model.EventState;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventSearchCacheTest {
+
+    private final EventSearchCache cache = new EventSearchCache(true, 100, Duration.ofMinutes(1));
+
+    @Test
+    void evictsPagesOfPreviousCategory() {
+        EventSearchCache.Key previousCategory = cachePage(List.of(1L), null, 10L);
+        EventSearchCache.Key otherCategory = cachePage(List.of(3L), null, 30L);
+
+        cache.onEventChange(change(99L, EventState.PUBLISHED, 2L, false, 1L, false));
+
+        assertThat(cache.get(previousCategory)).isNull();
+        assertThat(cache.get(otherCategory)).isNotNull();
+    }
+
+    @Test
+    void evictsPagesOfPreviousPaidFilter() {
+        EventSearchCache.Key free = cachePage(null, false, 10L);
+        EventSearchCache.Key paid = cachePage(null, true, 20L);
+
+        cache.onEventChange(change(99L, EventState.PUBLISHED, 1L, true, 1L, false));
+
+        assertThat(cache.get(free)).isNull();
+        assertThat(cache.get(paid)).isNull();
+    }
+
+    @Test
+    void evictsMatchingPagesWhenEventIsNoLongerPublished() {
+        // Страница без самого события: его снятие сдвигает её вместе с предыдущими
+        EventSearchCache.Key matching = cachePage(List.of(1L), null, 10L);
+        EventSearchCache.Key otherCategory = cachePage(List.of(3L), null, 30L);
+
+        cache.onEventChange(change(99L, EventState.CANCELED, 1L, false, 1L, false));
+
+        assertThat(cache.get(matching)).isNull();
+        assertThat(cache.get(otherCategory)).isNotNull();
+    }
+
+    @Test
+    void evictsPagesContainingEvent() {
+        EventSearchCache.Key containing = cachePage(List.of(3L), null, 99L);
+
+        cache.onEventChange(change(99L, EventState.PUBLISHED, 1L, false, 1L, false));
+
+        assertThat(cache.get(containing)).isNull();
+    }
+
+    private EventSearchCache.Key cachePage(List<Long> categories, Boolean paid, Long eventId) {
+        EventSearchCache.Key key = cache.key(null, categories, paid, null, null, null,
+                null, null, null, null, "EVENT_DATE", 10, 10, null);
+        EventShortDto event = new EventShortDto();
+        event.setId(eventId);
+        cache.put(key, cache.generation(), new CursorPage<>(List.of(event), null));
+        return key;
+    }
+
+    private static EventChange change(Long id, EventState state, Long categoryId, boolean paid,
+                                      Long previousCategoryId, boolean previousPaid) {
+        return new EventChange(id, state, categoryId, paid, LocalDateTime.now().plusDays(1), null, false,
+                previousCategoryId, previousPaid);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.ewmservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import ru.practicum.ewmservice.dto.EventShortDto;
+import ru.practicum.ewmservice.exception.ValidationException;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+class PageCursorTest {
+
+    private static final Sort BY_EVENT_DATE = Sort.by(Sort.Order.desc("eventDate"), Sort.Order.asc("id"));
+    private static final Sort BY_HOT_SCORE = Sort.by(Sort.Order.desc("hotScore"), Sort.Order.asc("id"));
+
+    @Test
+    void decodesEncodedSortKeys() {
+        EventShortDto event = new EventShortDto();
+        event.setId(42L);
+        event.setEventDate(LocalDateTime.of(2030, 1, 2, 3, 4, 5));
+
+        ScrollPosition position = PageCursor.position(PageCursor.encode(event, BY_EVENT_DATE), 0, 10, BY_EVENT_DATE);
+
+        assertThat(position).isInstanceOf(KeysetScrollPosition.class);
+        KeysetScrollPosition keyset = (KeysetScrollPosition) position;
+        assertThat(keyset.scrollsForward()).isTrue();
+        assertThat(keyset.getKeys()).containsExactly(entry("eventDate", event.getEventDate()), entry("id", 42L));
+    }
+
+    @Test
+    void decodesDoubleKey() {
+        EventShortDto event = new EventShortDto();
+        event.setId(7L);
+        event.setHotScore(0.125);
+
+        KeysetScrollPosition position = (KeysetScrollPosition) PageCursor.position(
+                PageCursor.encode(event, BY_HOT_SCORE), 0, 10, BY_HOT_SCORE);
+
+        assertThat(position.getKeys()).containsEntry("hotScore", 0.125).containsEntry("id", 7L);
+    }
+
+    @Test
+    void usesOffsetWithoutCursor() {
+        assertThat(PageCursor.position(null, 0, 10, BY_EVENT_DATE)).isEqualTo(ScrollPosition.offset());
+        // Страница с 20-го элемента начинается после элемента с индексом 19; from округляется вниз до size
+        assertThat(PageCursor.position(null, 25, 10, BY_EVENT_DATE)).isEqualTo(ScrollPosition.offset(19));
+    }
+
+    @Test
+    void rejectsCursorOfAnotherSort() {
+        EventShortDto event = new EventShortDto();
+        event.setId(1L);
+        event.setEventDate(LocalDateTime.of(2030, 1, 1, 0, 0));
+        String cursor = PageCursor.encode(event, BY_EVENT_DATE);
+
+        assertThatThrownBy(() -> PageCursor.position(cursor, 0, 10, BY_HOT_SCORE))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> PageCursor.position(cursor, 0, 10, Sort.by("id")))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThatThrownBy(() -> PageCursor.position("not a cursor!", 0, 10, BY_EVENT_DATE))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> PageCursor.position("ZXZlbnREYXRlPVh4", 0, 10, BY_EVENT_DATE))
+                .isInstanceOf(ValidationException.class);
+    }
+}
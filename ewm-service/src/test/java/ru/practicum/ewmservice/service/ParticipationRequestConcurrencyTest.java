@@ -0,0 +1,183 @@
+package ru.practicum.ewmservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.ewmservice.EmbeddedPostgresConfiguration;
+import ru.practicum.ewmservice.dto.CategoryDto;
+import ru.practicum.ewmservice.dto.EventFullDto;
+import ru.practicum.ewmservice.dto.NewEventDto;
+import ru.practicum.ewmservice.dto.UpdateEventAdminRequest;
+import ru.practicum.ewmservice.dto.UserDto;
+import ru.practicum.ewmservice.exception.ConflictException;
+import ru.practicum.ewmservice.model.Location;
+import ru.practicum.ewmservice.repository.EventRepository;
+import ru.practicum.ewmservice.repository.ParticipationRequestRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Параллельные заявки на событие с лимитом участников против PostgreSQL: лимит не превышается,
+ * а не поместившиеся заявки получают ConflictException, а не ошибки блокировок или сериализации.
+ * Ни один запрос не ждёт блокировку дольше {@link EmbeddedPostgresConfiguration#LOCK_TIMEOUT}.
+ * <p>
+ * По умолчанию нагрузка небольшая; профиль stress ({@code mvn test -Pstress}) или свойства
+ * ewm.stress.requesters и ewm.stress.threads увеличивают её.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(EmbeddedPostgresConfiguration.class)
+class ParticipationRequestConcurrencyTest {
+
+    private static final int PARTICIPANT_LIMIT = 20;
+    private static final int REQUESTERS = Integer.getInteger("ewm.stress.requesters", 200);
+    private static final int THREADS = Integer.getInteger("ewm.stress.threads", 32);
+    private static final int BATCHES = 8;
+    private static final int BATCH_SIZE = 7;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private PrivateEventService privateEventService;
+    @Autowired
+    private EventService eventService;
+    @Autowired
+    private ParticipationRequestService requestService;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private ParticipationRequestRepository requestRepository;
+
+    @Test
+    void parallelRequestsDoNotExceedParticipantLimit() throws Exception {
+        Long initiatorId = createUser("concurrency-initiator");
+        Long eventId = createPublishedEvent(initiatorId, PARTICIPANT_LIMIT);
+        List<Long> requesters = new ArrayList<>();
+        for (int i = 0; i < REQUESTERS; i++) {
+            requesters.add(createUser("concurrency-requester-" + i));
+        }
+
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger lockTimeouts = new AtomicInteger();
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Long requesterId : requesters) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        requestService.createRequest(requesterId, eventId);
+                        created.incrementAndGet();
+                    } catch (ConflictException e) {
+                        rejected.incrementAndGet();
+                    } catch (PessimisticLockingFailureException e) {
+                        lockTimeouts.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        errors.add(e);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(lockTimeouts.get()).as("requests that waited for a lock longer than %s",
+                EmbeddedPostgresConfiguration.LOCK_TIMEOUT).isZero();
+        assertThat(errors).isEmpty();
+        assertThat(created.get()).isEqualTo(PARTICIPANT_LIMIT);
+        assertThat(rejected.get()).isEqualTo(REQUESTERS - PARTICIPANT_LIMIT);
+        assertThat(eventRepository.findById(eventId).orElseThrow().getConfirmedRequests())
+                .isEqualTo(PARTICIPANT_LIMIT);
+        assertThat(requestRepository.countConfirmedByEventIds(List.of(eventId)))
+                .singleElement()
+                .satisfies(row -> assertThat((Long) row[1]).isEqualTo(PARTICIPANT_LIMIT));
+    }
+
+    @Test
+    void parallelBatchesInsertOnlyClaimedSeats() throws Exception {
+        Long initiatorId = createUser("batch-initiator");
+        Long eventId = createPublishedEvent(initiatorId, PARTICIPANT_LIMIT);
+        List<List<Long>> batches = new ArrayList<>();
+        for (int b = 0; b < BATCHES; b++) {
+            List<Long> batch = new ArrayList<>();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                batch.add(createUser("batch-requester-" + b + "-" + i));
+            }
+            batches.add(batch);
+        }
+
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(BATCHES);
+        try {
+            List<Future<List<RegistrationOutcome>>> futures = new ArrayList<>();
+            for (List<Long> batch : batches) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return requestService.createRequests(eventId, batch);
+                }));
+            }
+            start.countDown();
+            for (Future<List<RegistrationOutcome>> future : futures) {
+                future.get().stream()
+                        .filter(outcome -> outcome.request() != null)
+                        .forEach(outcome -> accepted.incrementAndGet());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(accepted.get()).isEqualTo(PARTICIPANT_LIMIT);
+        assertThat(eventRepository.findById(eventId).orElseThrow().getConfirmedRequests())
+                .isEqualTo(PARTICIPANT_LIMIT);
+        assertThat(requestRepository.countConfirmedByEventIds(List.of(eventId)))
+                .singleElement()
+                .satisfies(row -> assertThat((Long) row[1]).isEqualTo(PARTICIPANT_LIMIT));
+    }
+
+    private Long createUser(String name) {
+        return userService.createUser(UserDto.builder().name(name).email(name + "@example.com").build()).getId();
+    }
+
+    private Long createPublishedEvent(Long initiatorId, int participantLimit) {
+        CategoryDto category = categoryService.createCategory(new CategoryDto(null, "Concurrency " + initiatorId));
+        NewEventDto newEvent = new NewEventDto();
+        newEvent.setTitle("Concurrency test event");
+        newEvent.setAnnotation("Concurrency test event annotation");
+        newEvent.setDescription("Concurrency test event description");
+        newEvent.setCategory(category.getId());
+        newEvent.setEventDate(LocalDateTime.now().plusDays(3));
+        newEvent.setLocation(new Location(55.75f, 37.61f));
+        newEvent.setParticipantLimit(participantLimit);
+        newEvent.setRequestModeration(false);
+        EventFullDto event = privateEventService.createEvent(initiatorId, newEvent);
+
+        UpdateEventAdminRequest publish = new UpdateEventAdminRequest();
+        publish.setStateAction("PUBLISH_EVENT");
+        eventService.updateEventByAdmin(event.getId(), publish);
+        return event.getId();
+    }
+}
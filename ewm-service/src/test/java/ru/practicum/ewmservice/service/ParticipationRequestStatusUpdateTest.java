@@ -0,0 +1,142 @@
+package ru.practicum.ewmservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.ewmservice.EmbeddedPostgresConfiguration;
+import ru.practicum.ewmservice.dto.CategoryDto;
+import ru.practicum.ewmservice.dto.EventFullDto;
+import ru.practicum.ewmservice.dto.EventRequestStatusUpdateRequest;
+import ru.practicum.ewmservice.dto.EventRequestStatusUpdateResult;
+import ru.practicum.ewmservice.dto.NewEventDto;
+import ru.practicum.ewmservice.dto.ParticipationRequestDto;
+import ru.practicum.ewmservice.dto.UpdateEventAdminRequest;
+import ru.practicum.ewmservice.dto.UserDto;
+import ru.practicum.ewmservice.model.Location;
+import ru.practicum.ewmservice.model.RequestStatus;
+import ru.practicum.ewmservice.repository.EventRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(EmbeddedPostgresConfiguration.class)
+class ParticipationRequestStatusUpdateTest {
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private PrivateEventService privateEventService;
+    @Autowired
+    private EventService eventService;
+    @Autowired
+    private ParticipationRequestService requestService;
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Test
+    void rejectIgnoresRejectOverflow() {
+        Long initiatorId = createUser("status-reject-initiator");
+        Long eventId = createPublishedEvent(initiatorId, 2);
+        List<Long> requestIds = createRequests(eventId, "status-reject", 3);
+
+        EventRequestStatusUpdateResult result = requestService.updateRequestStatus(initiatorId, eventId,
+                new EventRequestStatusUpdateRequest(requestIds, "REJECTED", false));
+
+        assertThat(result.getConfirmedRequests()).isEmpty();
+        assertThat(result.getRejectedRequests())
+                .extracting(ParticipationRequestDto::getId)
+                .containsExactlyInAnyOrderElementsOf(requestIds);
+        assertThat(result.getRejectedRequests())
+                .extracting(ParticipationRequestDto::getStatus)
+                .containsOnly(RequestStatus.REJECTED);
+    }
+
+    @Test
+    void confirmWithoutRejectOverflowLeavesOverflowPending() {
+        Long initiatorId = createUser("status-keep-initiator");
+        Long eventId = createPublishedEvent(initiatorId, 2);
+        List<Long> requestIds = createRequests(eventId, "status-keep", 4);
+
+        EventRequestStatusUpdateResult result = requestService.updateRequestStatus(initiatorId, eventId,
+                new EventRequestStatusUpdateRequest(requestIds, "CONFIRMED", false));
+
+        assertThat(result.getConfirmedRequests())
+                .extracting(ParticipationRequestDto::getId)
+                .containsExactlyInAnyOrderElementsOf(requestIds.subList(0, 2));
+        assertThat(result.getRejectedRequests()).isEmpty();
+        assertThat(requestService.getEventRequests(initiatorId, eventId))
+                .filteredOn(request -> request.getStatus() == RequestStatus.PENDING)
+                .extracting(ParticipationRequestDto::getId)
+                .containsExactlyInAnyOrderElementsOf(requestIds.subList(2, 4));
+        assertThat(eventRepository.findById(eventId).orElseThrow().getConfirmedRequests()).isEqualTo(2);
+    }
+
+    @Test
+    void confirmReturnsSeatsClaimedForRepeatedIds() {
+        Long initiatorId = createUser("status-repeat-initiator");
+        Long eventId = createPublishedEvent(initiatorId, 5);
+        List<Long> requestIds = createRequests(eventId, "status-repeat", 2);
+        List<Long> repeated = List.of(requestIds.get(0), requestIds.get(0), requestIds.get(1));
+
+        EventRequestStatusUpdateResult result = requestService.updateRequestStatus(initiatorId, eventId,
+                new EventRequestStatusUpdateRequest(repeated, "CONFIRMED", null));
+
+        assertThat(result.getConfirmedRequests()).hasSize(2);
+        assertThat(eventRepository.findById(eventId).orElseThrow().getConfirmedRequests()).isEqualTo(2);
+    }
+
+    @Test
+    void confirmRejectsOverflowByDefault() {
+        Long initiatorId = createUser("status-overflow-initiator");
+        Long eventId = createPublishedEvent(initiatorId, 2);
+        List<Long> requestIds = createRequests(eventId, "status-overflow", 4);
+
+        EventRequestStatusUpdateResult result = requestService.updateRequestStatus(initiatorId, eventId,
+                new EventRequestStatusUpdateRequest(requestIds, "CONFIRMED", null));
+
+        assertThat(result.getConfirmedRequests()).hasSize(2);
+        assertThat(result.getRejectedRequests())
+                .extracting(ParticipationRequestDto::getId)
+                .containsExactlyInAnyOrderElementsOf(requestIds.subList(2, 4));
+    }
+
+    private List<Long> createRequests(Long eventId, String prefix, int count) {
+        List<Long> requestIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            requestIds.add(requestService.createRequest(createUser(prefix + "-" + i), eventId).getId());
+        }
+        return requestIds;
+    }
+
+    private Long createUser(String name) {
+        return userService.createUser(UserDto.builder().name(name).email(name + "@example.com").build()).getId();
+    }
+
+    private Long createPublishedEvent(Long initiatorId, int participantLimit) {
+        CategoryDto category = categoryService.createCategory(new CategoryDto(null, "Status " + initiatorId));
+        NewEventDto newEvent = new NewEventDto();
+        newEvent.setTitle("Status update test event");
+        newEvent.setAnnotation("Status update test event annotation");
+        newEvent.setDescription("Status update test event description");
+        newEvent.setCategory(category.getId());
+        newEvent.setEventDate(LocalDateTime.now().plusDays(3));
+        newEvent.setLocation(new Location(55.75f, 37.61f));
+        newEvent.setParticipantLimit(participantLimit);
+        newEvent.setRequestModeration(true);
+        EventFullDto event = privateEventService.createEvent(initiatorId, newEvent);
+
+        UpdateEventAdminRequest publish = new UpdateEventAdminRequest();
+        publish.setStateAction("PUBLISH_EVENT");
+        eventService.updateEventByAdmin(event.getId(), publish);
+        return event.getId();
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.ewmservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostingListTest {
+
+    // Разности 1, 127, 128, 16384 и больше занимают 1, 1, 2, 3 и 4 байта varint
+    private static final int[] DOCS = {0, 1, 128, 256, 16_640, 2_113_792, 2_113_793};
+
+    @Test
+    void decodesAddedDocs() {
+        PublishedEventIndex.PostingList list = listOf(DOCS);
+
+        assertThat(list.size()).isEqualTo(DOCS.length);
+        assertThat(list.decode()).containsExactly(DOCS);
+    }
+
+    @Test
+    void decodesEmptyList() {
+        assertThat(new PublishedEventIndex.PostingList().decode()).isEmpty();
+    }
+
+    @Test
+    void retainsIntersectionInOrder() {
+        int[] candidates = {1, 2, 256, 300, 2_113_793, 3_000_000};
+
+        int kept = listOf(DOCS).retain(candidates, candidates.length);
+
+        assertThat(kept).isEqualTo(3);
+        assertThat(candidates).startsWith(1, 256, 2_113_793);
+    }
+
+    @Test
+    void retainsOnlyFirstCountCandidates() {
+        int[] candidates = {0, 128, 16_640};
+
+        int kept = listOf(DOCS).retain(candidates, 2);
+
+        assertThat(kept).isEqualTo(2);
+        assertThat(candidates).startsWith(0, 128);
+    }
+
+    @Test
+    void retainsNothingPastLastDoc() {
+        int[] candidates = {3_000_000, 4_000_000};
+
+        assertThat(listOf(DOCS).retain(candidates, candidates.length)).isZero();
+    }
+
+    private static PublishedEventIndex.PostingList listOf(int... docs) {
+        PublishedEventIndex.PostingList list = new PublishedEventIndex.PostingList();
+        for (int doc : docs) {
+            list.add(doc);
+        }
+        return list;
+    }
+}
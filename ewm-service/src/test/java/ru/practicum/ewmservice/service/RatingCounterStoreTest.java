@@ -0,0 +1,167 @@
+package ru.practicum.ewmservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ru.practicum.ewmservice.repository.EventRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RatingCounterStoreTest {
+
+    private final EventRepository eventRepository = mock(EventRepository.class);
+    private final RatingCounterStore store = new RatingCounterStore(eventRepository);
+
+    @Test
+    void checkpointSavesIncrementsAndRemovesZeroedCounters() {
+        store.onEventActivity(EventActivity.rating(1L, 2, 1));
+        store.onEventActivity(EventActivity.rating(1L, -1, 0));
+        store.onEventActivity(EventActivity.rating(2L, 0, 3));
+
+        assertThat(store.pendingLikes(1L)).isEqualTo(1);
+        assertThat(store.pendingDislikes(2L)).isEqualTo(3);
+
+        store.checkpoint();
+
+        verify(eventRepository).addRatingCounters(new Long[]{1L, 2L}, new Long[]{1L, 0L}, new Long[]{1L, 3L});
+        assertThat(store.pendingLikes(1L)).isZero();
+        assertThat(store.pendingDislikes(2L)).isZero();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void keepsIncrementsArrivingDuringCheckpoint() {
+        store.onEventActivity(EventActivity.rating(1L, 1, 0));
+        when(eventRepository.addRatingCounters(any(), any(), any())).thenAnswer(invocation -> {
+            store.onEventActivity(EventActivity.rating(1L, 1, 0));
+            return 1;
+        });
+
+        store.checkpoint();
+
+        assertThat(store.pendingLikes(1L)).isEqualTo(1);
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsIncrementsWhenSaveFails() {
+        store.onEventActivity(EventActivity.rating(1L, 1, 2));
+        when(eventRepository.addRatingCounters(any(), any(), any())).thenThrow(new IllegalStateException("down"));
+
+        assertThatThrownBy(store::checkpoint).isInstanceOf(IllegalStateException.class);
+
+        assertThat(store.pendingLikes(1L)).isEqualTo(1);
+        assertThat(store.pendingDislikes(1L)).isEqualTo(2);
+    }
+
+    @Test
+    void keepsRatingInFlightUntilTransactionCommits() {
+        completeTransaction(() -> {
+            store.onEventActivity(EventActivity.rating(1L, 1, 0));
+
+            assertThat(store.isSettled(1L)).isFalse();
+            assertThat(store.pendingLikes(1L)).isZero();
+        }, TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(store.pendingLikes(1L)).isEqualTo(1);
+        assertThat(store.isSettled(1L)).isFalse();
+
+        store.checkpoint();
+
+        assertThat(store.isSettled(1L)).isTrue();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void dropsRolledBackRating() {
+        completeTransaction(() -> store.onEventActivity(EventActivity.rating(1L, 1, 0)),
+                TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(store.pendingLikes(1L)).isZero();
+        assertThat(store.isSettled(1L)).isTrue();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void ignoresActivityWithoutRatings() {
+        store.onEventActivity(EventActivity.view(1L));
+        store.checkpoint();
+
+        verifyNoInteractions(eventRepository);
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void doesNotLoseIncrementsRacingWithCounterRemoval() throws Exception {
+        AtomicLong saved = new AtomicLong();
+        when(eventRepository.addRatingCounters(any(), any(), any())).thenAnswer(invocation -> {
+            for (Long likes : invocation.<Long[]>getArgument(1)) {
+                saved.addAndGet(likes);
+            }
+            return 1;
+        });
+        int threads = 8;
+        int increments = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean rating = new AtomicBoolean(true);
+        try {
+            Future<?> checkpoints = executor.submit(() -> {
+                start.await();
+                while (rating.get()) {
+                    store.checkpoint();
+                }
+                return null;
+            });
+            List<Future<?>> raters = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                raters.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < increments; i++) {
+                        store.onEventActivity(EventActivity.rating((long) i % 4, 1, 0));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> rater : raters) {
+                rater.get();
+            }
+            rating.set(false);
+            checkpoints.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        store.checkpoint();
+
+        assertThat(saved.get()).isEqualTo((long) threads * increments);
+        assertThat(store.size()).isZero();
+    }
+
+    private static void completeTransaction(Runnable body, int status) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            body.run();
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), status);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.ewmservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewmservice.dto.ParticipationRequestDto;
+import ru.practicum.ewmservice.dto.RegistrationTicketDto;
+import ru.practicum.ewmservice.exception.TooManyRequestsException;
+import ru.practicum.ewmservice.model.RegistrationStatus;
+import ru.practicum.ewmservice.repository.EventRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RegistrationQueueTest {
+
+    private static final Long EVENT_ID = 1L;
+
+    private final ParticipationRequestService requestService = mock(ParticipationRequestService.class);
+    private final RegistrationQueue queue = new RegistrationQueue(requestService, mock(EventRepository.class),
+            2, 100, 1000, Duration.ofMinutes(10), Duration.ofSeconds(5));
+
+    @AfterEach
+    void tearDown() {
+        queue.shutdown();
+    }
+
+    @Test
+    void startsWorkersWhenApplicationIsReady() throws Exception {
+        CountDownLatch registered = acceptAll();
+        RegistrationTicketDto ticket = queue.submit(10L, EVENT_ID);
+
+        assertThat(registered.await(500, TimeUnit.MILLISECONDS)).isFalse();
+        verify(requestService, never()).createRequests(anyLong(), any());
+
+        queue.onApplicationReady();
+
+        assertThat(registered.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(awaitCompleted(ticket).getStatus()).isEqualTo(RegistrationStatus.ACCEPTED);
+    }
+
+    @Test
+    void shutdownProcessesQueuedRequestsAndStopsAccepting() {
+        acceptAll();
+        queue.onApplicationReady();
+        List<RegistrationTicketDto> tickets = new ArrayList<>();
+        for (long userId = 10; userId < 50; userId++) {
+            tickets.add(queue.submit(userId, EVENT_ID));
+        }
+
+        queue.shutdown();
+
+        assertThat(tickets).allSatisfy(ticket -> assertThat(
+                queue.getTicket(ticket.getRequester(), ticket.getId()).getStatus())
+                .isEqualTo(RegistrationStatus.ACCEPTED));
+        assertThatThrownBy(() -> queue.submit(99L, EVENT_ID)).isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void shutdownRejectsRequestsThatWereNotProcessed() {
+        RegistrationTicketDto ticket = queue.submit(10L, EVENT_ID);
+
+        queue.shutdown();
+
+        RegistrationTicketDto completed = queue.getTicket(10L, ticket.getId());
+        assertThat(completed.getStatus()).isEqualTo(RegistrationStatus.REJECTED);
+        assertThat(completed.getReason()).isEqualTo("Registration queue stopped");
+        verify(requestService, never()).createRequests(anyLong(), any());
+    }
+
+    private CountDownLatch acceptAll() {
+        CountDownLatch registered = new CountDownLatch(1);
+        when(requestService.createRequests(anyLong(), any())).thenAnswer(invocation -> {
+            List<Long> userIds = invocation.getArgument(1);
+            registered.countDown();
+            return userIds.stream().map(userId -> RegistrationOutcome.accepted(new ParticipationRequestDto())).toList();
+        });
+        return registered;
+    }
+
+    private RegistrationTicketDto awaitCompleted(RegistrationTicketDto ticket) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        RegistrationTicketDto current = queue.getTicket(ticket.getRequester(), ticket.getId());
+        while (current.getStatus() == RegistrationStatus.QUEUED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            current = queue.getTicket(ticket.getRequester(), ticket.getId());
+        }
+        return current;
+    }
+}
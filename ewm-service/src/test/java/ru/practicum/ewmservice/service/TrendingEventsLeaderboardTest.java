@@ -0,0 +1,107 @@
+package ru.practicum.ewmservice.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewmservice.model.EventState;
+import ru.practicum.ewmservice.repository.EventRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TrendingEventsLeaderboardTest {
+
+    private static final Long CATEGORY = 1L;
+    private static final Long OTHER_CATEGORY = 2L;
+
+    private final TrendingEventsLeaderboard leaderboard =
+            new TrendingEventsLeaderboard(mock(EventRepository.class), Duration.ofHours(24), 2);
+
+    @Test
+    void keepsTopKByScore() {
+        publishWithViews(1L, CATEGORY, 3);
+        publishWithViews(2L, CATEGORY, 2);
+        publishWithViews(3L, CATEGORY, 1);
+
+        assertThat(leaderboard.getTop(null, 10)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void promotesNextEventAfterScoreDrop() {
+        publishWithViews(1L, CATEGORY, 3);
+        publishWithViews(2L, CATEGORY, 2);
+        publishWithViews(3L, CATEGORY, 1);
+
+        // Дизлайк опускает событие 1 ниже нуля: его место в топе категории занимает событие 3
+        leaderboard.onEventActivity(EventActivity.rating(1L, 0, 1));
+
+        assertThat(leaderboard.getTop(null, 10)).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void reordersAfterScoreDropWithinTop() {
+        publishWithViews(1L, CATEGORY, 10);
+        publishWithViews(2L, CATEGORY, 8);
+        publishWithViews(3L, CATEGORY, 1);
+
+        leaderboard.onEventActivity(EventActivity.rating(1L, 0, 1));
+
+        assertThat(leaderboard.getTop(null, 10)).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void refillsCategoryTopWhenReserveIsExhausted() {
+        for (long id = 1; id <= 6; id++) {
+            publishWithViews(id, CATEGORY, (int) (7 - id));
+        }
+
+        // В топе и запасе события 1-4; после выбывания трёх из них категория пересобирается из всех событий
+        leaderboard.onEventActivity(EventActivity.rating(1L, 0, 2));
+        leaderboard.onEventActivity(EventActivity.rating(2L, 0, 2));
+        assertThat(leaderboard.getTop(null, 10)).containsExactly(3L, 4L);
+        leaderboard.onEventActivity(EventActivity.rating(3L, 0, 2));
+
+        assertThat(leaderboard.getTop(null, 10)).containsExactly(4L, 5L);
+    }
+
+    @Test
+    void mergesCategoryTopsAndFiltersByCategory() {
+        publishWithViews(1L, CATEGORY, 3);
+        publishWithViews(2L, CATEGORY, 2);
+        publishWithViews(3L, OTHER_CATEGORY, 5);
+
+        assertThat(leaderboard.getTop(null, 10)).containsExactly(3L, 1L, 2L);
+        assertThat(leaderboard.getTop(List.of(CATEGORY), 10)).containsExactly(1L, 2L);
+        assertThat(leaderboard.getTop(null, 1)).containsExactly(3L);
+    }
+
+    @Test
+    void dropsUnpublishedAndPastEvents() {
+        publishWithViews(1L, CATEGORY, 3);
+        publishWithViews(2L, CATEGORY, 2);
+        leaderboard.onEventChange(change(1L, EventState.CANCELED, CATEGORY, LocalDateTime.now().plusDays(1)));
+        leaderboard.onEventChange(change(2L, EventState.PUBLISHED, CATEGORY, LocalDateTime.now().minusMinutes(1)));
+
+        assertThat(leaderboard.getTop(null, 10)).isEmpty();
+    }
+
+    @Test
+    void ignoresActivityOfUnknownEvents() {
+        leaderboard.onEventActivity(EventActivity.view(42L));
+
+        assertThat(leaderboard.getTop(null, 10)).isEmpty();
+    }
+
+    private void publishWithViews(Long eventId, Long categoryId, int views) {
+        leaderboard.onEventChange(change(eventId, EventState.PUBLISHED, categoryId, LocalDateTime.now().plusDays(1)));
+        for (int i = 0; i < views; i++) {
+            leaderboard.onEventActivity(EventActivity.view(eventId));
+        }
+    }
+
+    private static EventChange change(Long eventId, EventState state, Long categoryId, LocalDateTime eventDate) {
+        return new EventChange(eventId, state, categoryId, false, eventDate, null, false, categoryId, false);
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.ewmservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ViewDeduplicatorTest {
+
+    @Test
+    void countsOneViewPerEventAndIpWithinWindow() {
+        ViewDeduplicator deduplicator = new ViewDeduplicator(Duration.ofHours(1), 100);
+
+        assertThat(deduplicator.isNewView(1L, "10.0.0.1")).isTrue();
+        assertThat(deduplicator.isNewView(1L, "10.0.0.1")).isFalse();
+        assertThat(deduplicator.isNewView(1L, "10.0.0.2")).isTrue();
+        assertThat(deduplicator.isNewView(2L, "10.0.0.1")).isTrue();
+    }
+
+    @Test
+    void countsViewAgainAfterWindow() {
+        ViewDeduplicator deduplicator = new ViewDeduplicator(Duration.ZERO, 100);
+
+        assertThat(deduplicator.isNewView(1L, "10.0.0.1")).isTrue();
+        assertThat(deduplicator.isNewView(1L, "10.0.0.1")).isTrue();
+    }
+
+    @Test
+    void forgetsOldestPairsBeyondSize() {
+        ViewDeduplicator deduplicator = new ViewDeduplicator(Duration.ofHours(1), 1);
+
+        deduplicator.isNewView(1L, "10.0.0.1");
+        deduplicator.isNewView(2L, "10.0.0.1");
+
+        assertThat(deduplicator.isNewView(1L, "10.0.0.1")).isTrue();
+    }
+}